@@ -35,6 +35,15 @@ android {
     kotlinOptions {
         jvmTarget = "11"
     }
+
+    // *Benchmark classes time the hot paths and are slow, run them with -Pbenchmark
+    testOptions {
+        unitTests.all {
+            if (!project.hasProperty("benchmark")) {
+                it.exclude("**/*Benchmark.class")
+            }
+        }
+    }
 }
 
 dependencies {
@@ -44,6 +53,7 @@ dependencies {
 
 
     implementation("com.google.android.gms:play-services-mlkit-text-recognition:19.0.0")
+    implementation("androidx.exifinterface:exifinterface:1.3.7")
 
 
     implementation("org.jetbrains.kotlin:kotlin-stdlib:1.8.21")
@@ -0,0 +1,88 @@
+package com.example.calculator;
+
+import java.util.Locale;
+
+/**
+ * Running totals for one backend over all races it entered. Latency is recorded for
+ * every answer, including ones that came in after the race was decided.
+ */
+public class BackendStats {
+    private final String name;
+    private long races;
+    private long wins;
+    private long answers;
+    private long failures;
+    private long cancelled;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    BackendStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized long getRaces() {
+        return races;
+    }
+
+    public synchronized long getWins() {
+        return wins;
+    }
+
+    public synchronized long getAnswers() {
+        return answers;
+    }
+
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    public synchronized long getCancelled() {
+        return cancelled;
+    }
+
+    // Share of entered races this backend won, 0 before the first race
+    public synchronized double getWinRate() {
+        return races == 0 ? 0 : (double) wins / races;
+    }
+
+    public synchronized double getMeanLatencyMillis() {
+        return answers == 0 ? 0 : totalLatencyNanos / 1e6 / answers;
+    }
+
+    public synchronized double getMaxLatencyMillis() {
+        return maxLatencyNanos / 1e6;
+    }
+
+    synchronized void recordEntered() {
+        races++;
+    }
+
+    synchronized void recordWin() {
+        wins++;
+    }
+
+    synchronized void recordLatency(long nanos) {
+        answers++;
+        totalLatencyNanos += nanos;
+        maxLatencyNanos = Math.max(maxLatencyNanos, nanos);
+    }
+
+    synchronized void recordFailure() {
+        failures++;
+    }
+
+    synchronized void recordCancelled() {
+        cancelled++;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US,
+                "%s: won %d/%d, mean %.1f ms, max %.1f ms, %d cancelled, %d failed",
+                name, wins, races, getMeanLatencyMillis(), getMaxLatencyMillis(), cancelled, failures);
+    }
+}
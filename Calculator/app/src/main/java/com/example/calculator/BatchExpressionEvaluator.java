@@ -0,0 +1,268 @@
+package com.example.calculator;
+
+import com.example.calculator.EvaluationResult.ErrorCode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates a batch of related expressions (line items, subtotals, totals) at once.
+ * A repeated expression is answered from the first one without parsing it again, and
+ * every parsed subtree is hash-consed into a DAG shared by the whole batch, so a
+ * sub-term that appears in many expressions is computed only once.
+ */
+public class BatchExpressionEvaluator {
+
+    private final MathExpressionParser parser;
+
+    public BatchExpressionEvaluator() {
+        this(new MathExpressionParser());
+    }
+
+    public BatchExpressionEvaluator(MathExpressionParser parser) {
+        this.parser = parser;
+    }
+
+    public BatchResult evaluateAll(List<String> expressions) {
+        Batch batch = new Batch();
+        EvaluationResult[] results = new EvaluationResult[expressions.size()];
+
+        for (int i = 0; i < expressions.size(); i++) {
+            String expression = expressions.get(i);
+            if (expression == null) {
+                results[i] = EvaluationResult.failure(ErrorCode.EMPTY, 0);
+                continue;
+            }
+
+            // Keyed by the text as given and normalized, a repeated item is only looked up
+            EvaluationResult known = batch.results.get(expression);
+            if (known == null) {
+                String normalized = parser.normalize(expression);
+                known = batch.results.get(normalized);
+                if (known == null) {
+                    EvaluationResult invalid = parser.validate(normalized);
+                    known = invalid != null ? invalid : parser.eval(normalized, batch.new Trees(normalized.length()));
+                    batch.results.put(normalized, known);
+                } else {
+                    batch.repeated++;
+                }
+                batch.results.put(expression, known);
+            } else {
+                batch.repeated++;
+            }
+            results[i] = known;
+        }
+
+        return new BatchResult(results, batch.repeated, batch.requested, batch.nodes.size(), batch.operations);
+    }
+
+    public static class BatchResult {
+        private final EvaluationResult[] results;
+        private final int repeatedExpressions;
+        private final int nodesRequested;
+        private final int distinctNodes;
+        private final int operationsEvaluated;
+
+        BatchResult(EvaluationResult[] results, int repeatedExpressions, int nodesRequested,
+                    int distinctNodes, int operationsEvaluated) {
+            this.results = results;
+            this.repeatedExpressions = repeatedExpressions;
+            this.nodesRequested = nodesRequested;
+            this.distinctNodes = distinctNodes;
+            this.operationsEvaluated = operationsEvaluated;
+        }
+
+        public int size() {
+            return results.length;
+        }
+
+        // Same value, error code and position as MathExpressionParser.tryEvaluate
+        public EvaluationResult getResult(int index) {
+            return results[index];
+        }
+
+        public boolean isValid(int index) {
+            return results[index].isSuccess();
+        }
+
+        // NaN when the expression failed
+        public double getValue(int index) {
+            return results[index].getValue();
+        }
+
+        public ErrorCode getError(int index) {
+            return results[index].getError();
+        }
+
+        // Expressions answered from an earlier identical one, without parsing
+        public int getRepeatedExpressions() {
+            return repeatedExpressions;
+        }
+
+        // Subtrees built while parsing the batch, before deduplication
+        public int getNodesRequested() {
+            return nodesRequested;
+        }
+
+        // Subtrees actually kept in the shared DAG
+        public int getDistinctNodes() {
+            return distinctNodes;
+        }
+
+        public int getReusedNodes() {
+            return nodesRequested - distinctNodes;
+        }
+
+        public int getOperationsEvaluated() {
+            return operationsEvaluated;
+        }
+
+        public double getReuseRatio() {
+            return nodesRequested == 0 ? 0 : (double) getReusedNodes() / nodesRequested;
+        }
+    }
+
+    // Results and the shared DAG of one evaluateAll call
+    private static class Batch {
+        private final Map<String, EvaluationResult> results = new HashMap<>();
+        private final Map<Node, Node> nodes = new HashMap<>();
+        private int repeated;
+        private int requested;
+        private int operations;
+
+        private Node intern(Node candidate) {
+            requested++;
+            Node existing = nodes.get(candidate);
+            if (existing != null) {
+                return existing;
+            }
+
+            // Children are always interned first, so their values are ready
+            if (candidate.op != null) {
+                candidate.evaluate();
+                operations++;
+            }
+            nodes.put(candidate, candidate);
+            return candidate;
+        }
+
+        // MathExpressionParser.eval keeps interned nodes on its operand stack instead of values
+        private final class Trees implements MathExpressionParser.Operands {
+            private final Node[] operands;
+            private int operandCount;
+
+            Trees(int length) {
+                operands = new Node[length];
+            }
+
+            @Override
+            public void pushNumber(double value) {
+                operands[operandCount++] = intern(new Node(value));
+            }
+
+            @Override
+            public ErrorCode negate() {
+                return replaceTop(1, new Node(Node.NEGATE, operands[operandCount - 1], null));
+            }
+
+            @Override
+            public ErrorCode apply(MathRegistry.UnaryFunction function) {
+                return replaceTop(1, new Node(function, operands[operandCount - 1], null));
+            }
+
+            @Override
+            public ErrorCode apply(MathRegistry.Operator operator) {
+                return replaceTop(2, new Node(operator, operands[operandCount - 2], operands[operandCount - 1]));
+            }
+
+            @Override
+            public int size() {
+                return operandCount;
+            }
+
+            @Override
+            public double result() {
+                return operands[0].value;
+            }
+
+            private ErrorCode replaceTop(int arity, Node candidate) {
+                Node node = intern(candidate);
+                operandCount -= arity - 1;
+                operands[operandCount - 1] = node;
+                // Children never carry errors here, evaluation stops at the first one
+                return node.error;
+            }
+        }
+    }
+
+    private static final class Node {
+        static final Object NEGATE = new Object();
+
+        // Operator, UnaryFunction or NEGATE; null for a number literal
+        final Object op;
+        final Node left;
+        final Node right;
+        final int hash;
+
+        double value;
+        ErrorCode error;
+
+        Node(double value) {
+            this.op = null;
+            this.left = null;
+            this.right = null;
+            this.value = value;
+            this.hash = Double.hashCode(value);
+        }
+
+        Node(Object op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+            this.hash = 31 * (31 * System.identityHashCode(op) + System.identityHashCode(left))
+                    + System.identityHashCode(right);
+        }
+
+        void evaluate() {
+            if (left.error != null || (right != null && right.error != null)) {
+                error = left.error != null ? left.error : right.error;
+                return;
+            }
+
+            if (op == NEGATE) {
+                value = -left.value;
+            } else if (op instanceof MathRegistry.UnaryFunction) {
+                value = ((MathRegistry.UnaryFunction) op).apply(left.value);
+                error = MathExpressionParser.checkFunctionResult(left.value, value);
+            } else {
+                MathRegistry.Operator operator = (MathRegistry.Operator) op;
+                value = operator.apply(left.value, right.value);
+                error = operator.checkResult(left.value, right.value, value);
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Node)) {
+                return false;
+            }
+            Node other = (Node) o;
+            if (op != other.op) {
+                return false;
+            }
+            if (op == null) {
+                return Double.doubleToLongBits(value) == Double.doubleToLongBits(other.value);
+            }
+            // Children are canonical instances, identity is enough
+            return left == other.left && right == other.right;
+        }
+    }
+}
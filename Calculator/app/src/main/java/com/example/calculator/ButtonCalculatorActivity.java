@@ -95,18 +95,20 @@ public class ButtonCalculatorActivity extends AppCompatActivity {
             return;
         }
 
-        try {
-            String expression = currentInput.toString();
-            // Validate expression
-            if (mathParser.isValidExpression(expression)) {
-                double result = mathParser.evaluateExpression(expression);
-                String resultString = formatResult(result);
-                resultText.setText("= " + resultString);
-            } else {
+        // Runs on every keystroke, so incomplete input must not cost an exception
+        EvaluationResult result = mathParser.tryEvaluate(currentInput.toString());
+        switch (result.getError()) {
+            case NONE:
+                resultText.setText("= " + formatResult(result.getValue()));
+                break;
+            case EMPTY:
+            case INVALID_CHARACTER:
+            case UNKNOWN_IDENTIFIER:
+            case UNBALANCED_PARENTHESES:
                 resultText.setText("Invalid expression");
-            }
-        } catch (Exception e) {
-            resultText.setText("Error");
+                break;
+            default:
+                resultText.setText("Error");
         }
     }
 
@@ -5,14 +5,29 @@ import android.graphics.*;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 public class DrawingView extends View {
+    private static final int GRID_SIZE = 50; // Grid spacing
+
     private Paint drawPaint;
     private Path drawPath;
-    private Bitmap canvasBitmap;
-    private Canvas drawCanvas;
+    // Ink-only 8-bit surface: strokes are stored as coverage, colour and grid are applied in onDraw
+    private Bitmap inkBitmap;
+    private Canvas inkCanvas;
     private int backgroundColor = Color.WHITE;
-    private Paint canvasPaint;
+    private Paint inkPaint;
+    private Paint gridPaint;
+    private float[] gridLines = new float[0];
+
+    // Raw touch points of the stroke in progress, simplified on ACTION_UP
+    private float[] currentStroke = new float[256];
+    private int currentPointCount;
+    private final StrokeSimplifier strokeSimplifier = new StrokeSimplifier();
+    private final List<float[]> strokes = new ArrayList<>();
 
     public DrawingView(Context context, AttributeSet attrs) {
         super(context, attrs);
@@ -31,7 +46,13 @@ public class DrawingView extends View {
         drawPaint.setStrokeJoin(Paint.Join.ROUND);
         drawPaint.setStrokeCap(Paint.Cap.ROUND);
 
-        canvasPaint = new Paint(Paint.DITHER_FLAG);
+        // ALPHA_8 bitmaps are drawn tinted with the paint colour
+        inkPaint = new Paint(Paint.DITHER_FLAG);
+        inkPaint.setColor(drawPaint.getColor());
+
+        gridPaint = new Paint();
+        gridPaint.setColor(Color.parseColor("#F1F5F9"));
+        gridPaint.setStrokeWidth(1f);
 
         setBackgroundColor(backgroundColor);
     }
@@ -39,36 +60,44 @@ public class DrawingView extends View {
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
-        canvasBitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
-        drawCanvas = new Canvas(canvasBitmap);
-        drawCanvas.drawColor(backgroundColor);
+        // 1 byte per pixel instead of 4 for ARGB_8888
+        inkBitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ALPHA_8);
+        inkCanvas = new Canvas(inkBitmap);
 
-        // Draw a subtle grid for better user experience
-        drawGrid();
+        // Subtle grid for better user experience, drawn at display time only
+        buildGrid(w, h);
     }
 
-    private void drawGrid() {
-        Paint gridPaint = new Paint();
-        gridPaint.setColor(Color.parseColor("#F1F5F9"));
-        gridPaint.setStrokeWidth(1f);
-
-        int gridSize = 50; // Grid spacing
+    private void buildGrid(int width, int height) {
+        int vertical = Math.max(0, (width - 1) / GRID_SIZE);
+        int horizontal = Math.max(0, (height - 1) / GRID_SIZE);
+        gridLines = new float[(vertical + horizontal) * 4];
 
+        int i = 0;
         // Vertical lines
-        for (int x = gridSize; x < getWidth(); x += gridSize) {
-            drawCanvas.drawLine(x, 0, x, getHeight(), gridPaint);
+        for (int x = GRID_SIZE; x < width; x += GRID_SIZE) {
+            gridLines[i++] = x;
+            gridLines[i++] = 0;
+            gridLines[i++] = x;
+            gridLines[i++] = height;
         }
 
         // Horizontal lines
-        for (int y = gridSize; y < getHeight(); y += gridSize) {
-            drawCanvas.drawLine(0, y, getWidth(), y, gridPaint);
+        for (int y = GRID_SIZE; y < height; y += GRID_SIZE) {
+            gridLines[i++] = 0;
+            gridLines[i++] = y;
+            gridLines[i++] = width;
+            gridLines[i++] = y;
         }
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        canvas.drawBitmap(canvasBitmap, 0, 0, canvasPaint);
+        canvas.drawLines(gridLines, gridPaint);
+        if (inkBitmap != null) {
+            canvas.drawBitmap(inkBitmap, 0, 0, inkPaint);
+        }
         canvas.drawPath(drawPath, drawPaint);
     }
 
@@ -79,15 +108,19 @@ public class DrawingView extends View {
 
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
+                currentPointCount = 0;
+                addPoint(touchX, touchY);
                 drawPath.moveTo(touchX, touchY);
                 break;
 
             case MotionEvent.ACTION_MOVE:
+                addPoint(touchX, touchY);
                 drawPath.lineTo(touchX, touchY);
                 break;
 
             case MotionEvent.ACTION_UP:
-                drawCanvas.drawPath(drawPath, drawPaint);
+                addPoint(touchX, touchY);
+                commitStroke();
                 drawPath.reset();
                 break;
 
@@ -99,20 +132,68 @@ public class DrawingView extends View {
         return true;
     }
 
+    private void addPoint(float x, float y) {
+        if (currentPointCount * 2 + 2 > currentStroke.length) {
+            currentStroke = Arrays.copyOf(currentStroke, currentStroke.length * 2);
+        }
+        currentStroke[currentPointCount * 2] = x;
+        currentStroke[currentPointCount * 2 + 1] = y;
+        currentPointCount++;
+    }
+
+    // The ink plane, and so recognition, only ever sees the simplified stroke
+    private void commitStroke() {
+        float[] stroke = strokeSimplifier.process(currentStroke, currentPointCount);
+        currentPointCount = 0;
+        strokes.add(stroke);
+
+        if (stroke.length < 4) {
+            return; // A tap, same as before: a lone moveTo draws nothing
+        }
+        drawPath.reset();
+        drawPath.moveTo(stroke[0], stroke[1]);
+        for (int i = 2; i < stroke.length; i += 2) {
+            drawPath.lineTo(stroke[i], stroke[i + 1]);
+        }
+        inkCanvas.drawPath(drawPath, drawPaint);
+    }
+
     public void clearCanvas() {
-        drawCanvas.drawColor(backgroundColor, PorterDuff.Mode.CLEAR);
-        drawCanvas.drawColor(backgroundColor);
-        drawGrid(); // Redraw grid after clearing
+        if (inkBitmap != null) {
+            inkBitmap.eraseColor(Color.TRANSPARENT);
+        }
+        strokes.clear();
+        currentPointCount = 0;
         drawPath.reset();
         invalidate();
     }
 
+    /**
+     * Returns the ink plane as an ALPHA_8 bitmap: 0 is empty paper, 255 is full ink.
+     * The grid and stroke colour are not part of it.
+     */
     public Bitmap getBitmap() {
-        return canvasBitmap;
+        return inkBitmap;
+    }
+
+    // Simplified strokes drawn so far, as flat [x0, y0, x1, y1, ...] arrays
+    public List<float[]> getStrokes() {
+        return Collections.unmodifiableList(strokes);
     }
 
+    // Max distance in pixels a dropped touch point may be from the drawn line
+    public void setSimplificationTolerance(float tolerance) {
+        strokeSimplifier.setTolerance(tolerance);
+    }
+
+    /**
+     * Sets the colour of all ink on this view, including strokes already drawn: the ink
+     * plane only stores coverage, so the view has a single ink colour.
+     */
     public void setStrokeColor(int color) {
         drawPaint.setColor(color);
+        inkPaint.setColor(color);
+        invalidate();
     }
 
     public void setStrokeWidth(float width) {
@@ -0,0 +1,66 @@
+package com.example.calculator;
+
+/**
+ * Outcome of {@link MathExpressionParser#tryEvaluate(String)}: either a value, or an
+ * error code with the position in the normalized expression where evaluation stopped.
+ */
+public final class EvaluationResult {
+
+    public enum ErrorCode {
+        NONE,
+        EMPTY,
+        INVALID_CHARACTER,
+        // Name that is neither a registered function nor a constant
+        UNKNOWN_IDENTIFIER,
+        UNBALANCED_PARENTHESES,
+        INVALID_NUMBER,
+        // Operator without an operand, e.g. "5+" or "*3"
+        MISSING_OPERAND,
+        // Two operands without an operator between them, e.g. "2(3)"
+        MISSING_OPERATOR,
+        DIVISION_BY_ZERO,
+        // Function or operator undefined for its arguments, or overflowing, e.g. sqrt(-1) or 10^400
+        DOMAIN_ERROR
+    }
+
+    private final double value;
+    private final ErrorCode error;
+    private final int position;
+
+    private EvaluationResult(double value, ErrorCode error, int position) {
+        this.value = value;
+        this.error = error;
+        this.position = position;
+    }
+
+    static EvaluationResult success(double value) {
+        return new EvaluationResult(value, ErrorCode.NONE, -1);
+    }
+
+    static EvaluationResult failure(ErrorCode error, int position) {
+        return new EvaluationResult(Double.NaN, error, position);
+    }
+
+    public boolean isSuccess() {
+        return error == ErrorCode.NONE;
+    }
+
+    // NaN when evaluation failed
+    public double getValue() {
+        return value;
+    }
+
+    public ErrorCode getError() {
+        return error;
+    }
+
+    // -1 on success
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? String.valueOf(value) : error + " at " + position;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.calculator;
+
+/**
+ * Approximate sin, cos, exp and log in plain Java, opt-in through {@link MathRegistry#fastMath()}.
+ * They are not faster than java.lang.Math in general: HotSpot intrinsics match or beat them,
+ * so {@link MathRegistry#standard()} stays the default. FastMathBenchmark compares both on
+ * the runtime at hand.
+ *
+ * <p>Error bounds, checked against java.lang.Math by FastMathTest:
+ * <ul>
+ *   <li>sin, cos: 4096-entry table with linear interpolation, absolute error below 3e-7
+ *   for |x| up to 1e6 (larger arguments fall back to java.lang.Math)</li>
+ *   <li>exp: Cody-Waite reduction to |r| &lt;= ln2/2 and a degree 11 polynomial,
+ *   relative error below 1e-14 for x in [-708, 709.78]</li>
+ *   <li>log, log10: reduction to m in [sqrt(1/2), sqrt(2)) and an atanh series in
+ *   s = (m-1)/(m+1), relative error below 1e-14</li>
+ * </ul>
+ * Special values (NaN, infinities, zero, negative log arguments) match java.lang.Math.
+ */
+public final class FastMath {
+
+    private static final int SIN_TABLE_SIZE = 1 << 12;
+    private static final double INDEX_SCALE = SIN_TABLE_SIZE / (2 * Math.PI);
+    // Beyond this, table index rounding starts to dominate the error
+    private static final double MAX_TABLE_ARGUMENT = 1e6;
+    // One extra entry so interpolation never wraps
+    private static final double[] SIN_TABLE = new double[SIN_TABLE_SIZE + 1];
+
+    private static final double LN2_HI = 6.93147180369123816490e-01;
+    private static final double LN2_LO = 1.90821492927058770002e-10;
+    private static final double INV_LN2 = 1.44269504088896338700e+00;
+    private static final double INV_LN10 = 0.43429448190325182765;
+    private static final double SQRT2 = 1.41421356237309504880;
+    private static final double EXP_OVERFLOW = 7.09782712893383973096e+02;
+    private static final double EXP_UNDERFLOW = -7.45133219101941108420e+02;
+    private static final double TWO_54 = 18014398509481984.0;
+    private static final long MANTISSA_MASK = 0x000FFFFFFFFFFFFFL;
+    private static final long ONE_BITS = 0x3FF0000000000000L;
+
+    static {
+        for (int i = 0; i <= SIN_TABLE_SIZE; i++) {
+            SIN_TABLE[i] = Math.sin(i * (2 * Math.PI) / SIN_TABLE_SIZE);
+        }
+    }
+
+    private FastMath() {
+    }
+
+    public static double sin(double x) {
+        if (!(Math.abs(x) <= MAX_TABLE_ARGUMENT)) {
+            return Math.sin(x); // NaN, infinities and huge arguments
+        }
+        return interpolate(x * INDEX_SCALE);
+    }
+
+    public static double cos(double x) {
+        if (!(Math.abs(x) <= MAX_TABLE_ARGUMENT)) {
+            return Math.cos(x);
+        }
+        // cos(x) = sin(x + pi/2), a quarter of the table further on
+        return interpolate(x * INDEX_SCALE + SIN_TABLE_SIZE / 4);
+    }
+
+    private static double interpolate(double position) {
+        long floor = (long) position;
+        if (floor > position) {
+            floor--; // Truncation rounds negative positions up
+        }
+        double fraction = position - floor;
+        int index = (int) (floor & (SIN_TABLE_SIZE - 1));
+        double a = SIN_TABLE[index];
+        return a + (SIN_TABLE[index + 1] - a) * fraction;
+    }
+
+    public static double exp(double x) {
+        if (x != x) {
+            return x;
+        }
+        if (x > EXP_OVERFLOW) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (x < EXP_UNDERFLOW) {
+            return 0.0;
+        }
+
+        // x = k*ln2 + r, ln2 split in two so the reduction is exact enough
+        double k = Math.rint(x * INV_LN2);
+        double r = (x - k * LN2_HI) - k * LN2_LO;
+
+        // Taylor series of e^r up to r^11/11!, Horner form
+        double p = 1.0 / 39916800;
+        p = p * r + 1.0 / 3628800;
+        p = p * r + 1.0 / 362880;
+        p = p * r + 1.0 / 40320;
+        p = p * r + 1.0 / 5040;
+        p = p * r + 1.0 / 720;
+        p = p * r + 1.0 / 120;
+        p = p * r + 1.0 / 24;
+        p = p * r + 1.0 / 6;
+        p = p * r + 0.5;
+        p = p * r + 1.0;
+        p = p * r + 1.0;
+
+        int n = (int) k;
+        if (n < Double.MIN_EXPONENT || n > Double.MAX_EXPONENT) {
+            return Math.scalb(p, n); // Subnormal or edge of overflow
+        }
+        // 2^n built directly from the exponent bits
+        return p * Double.longBitsToDouble((long) (n + 1023) << 52);
+    }
+
+    public static double log(double x) {
+        if (!(x > 0)) {
+            return x == 0 ? Double.NEGATIVE_INFINITY : Double.NaN;
+        }
+        if (x == Double.POSITIVE_INFINITY) {
+            return x;
+        }
+
+        long bits = Double.doubleToRawLongBits(x);
+        int exponent = (int) (bits >>> 52) - 1023;
+        if (exponent == Double.MIN_EXPONENT - 1) {
+            // Subnormal, scale into the normal range first
+            bits = Double.doubleToRawLongBits(x * TWO_54);
+            exponent = (int) (bits >>> 52) - 1023 - 54;
+        }
+        // Mantissa with a zero exponent, in [1, 2)
+        x = Double.longBitsToDouble((bits & MANTISSA_MASK) | ONE_BITS);
+        // Shift to [sqrt(1/2), sqrt(2)) to keep s small
+        if (x > SQRT2) {
+            x *= 0.5;
+            exponent++;
+        }
+
+        // ln(m) = 2 * atanh(s) = 2 * (s + s^3/3 + s^5/5 + ...), |s| <= 0.1716
+        double s = (x - 1) / (x + 1);
+        double s2 = s * s;
+        double series = 1.0 / 19;
+        series = series * s2 + 1.0 / 17;
+        series = series * s2 + 1.0 / 15;
+        series = series * s2 + 1.0 / 13;
+        series = series * s2 + 1.0 / 11;
+        series = series * s2 + 1.0 / 9;
+        series = series * s2 + 1.0 / 7;
+        series = series * s2 + 1.0 / 5;
+        series = series * s2 + 1.0 / 3;
+        double logM = 2 * s + 2 * s * s2 * series;
+
+        return exponent * LN2_HI + (logM + exponent * LN2_LO);
+    }
+
+    public static double log10(double x) {
+        return log(x) * INV_LN10;
+    }
+}
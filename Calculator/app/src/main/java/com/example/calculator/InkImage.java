@@ -0,0 +1,44 @@
+package com.example.calculator;
+
+/**
+ * Platform-free view of an 8-bit ink plane, such as DrawingView's ALPHA_8 bitmap:
+ * 0 is empty paper, 255 is full ink. Rows may be padded to {@code rowStride} bytes.
+ */
+public final class InkImage {
+    private final byte[] coverage;
+    private final int width;
+    private final int height;
+    private final int rowStride;
+
+    public InkImage(byte[] coverage, int width, int height, int rowStride) {
+        if (width <= 0 || height <= 0 || rowStride < width || coverage.length < rowStride * height) {
+            throw new IllegalArgumentException("Invalid ink plane " + width + "x" + height
+                    + " stride " + rowStride + " for " + coverage.length + " bytes");
+        }
+        this.coverage = coverage;
+        this.width = width;
+        this.height = height;
+        this.rowStride = rowStride;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getRowStride() {
+        return rowStride;
+    }
+
+    // Backing array, not copied
+    public byte[] getCoverage() {
+        return coverage;
+    }
+
+    public int getCoverage(int x, int y) {
+        return coverage[y * rowStride + x] & 0xFF;
+    }
+}
@@ -2,20 +2,29 @@ package com.example.calculator;
 
 import android.content.Intent;
 import android.graphics.Bitmap;
+import android.net.Uri;
 import android.os.Bundle;
 import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
+import java.util.List;
 
-public class MainActivity extends AppCompatActivity implements OCRHelper.OCRListener {
+public class MainActivity extends AppCompatActivity
+        implements OCRHelper.OCRListener, OCRHelper.MultiLineListener {
 
     private DrawingView drawingView;
     private TextView equationText, resultText;
     private Button clearButton, solveButton, buttonCalculatorBtn;
+    private TextView importImageButton;
     private MathExpressionParser mathParser;
     private OCRHelper ocrHelper;
 
+    private final ActivityResultLauncher<String> pickImage =
+            registerForActivityResult(new ActivityResultContracts.GetContent(), this::solveImportedImage);
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -36,6 +45,7 @@ public class MainActivity extends AppCompatActivity implements OCRHelper.OCRList
         clearButton = findViewById(R.id.clearButton);
         solveButton = findViewById(R.id.solveButton);
         buttonCalculatorBtn = findViewById(R.id.buttonCalculatorBtn);
+        importImageButton = findViewById(R.id.importImageButton);
     }
 
     private void setupListeners() {
@@ -51,7 +61,7 @@ public class MainActivity extends AppCompatActivity implements OCRHelper.OCRList
             if (drawingBitmap != null) {
                 equationText.setText("Processing...");
                 resultText.setText("Recognizing equation...");
-                ocrHelper.recognizeTextFromBitmap(drawingBitmap, this);
+                ocrHelper.recognizeLinesFromBitmap(drawingBitmap, this);
             } else {
                 Toast.makeText(this, "Please draw an equation first", Toast.LENGTH_SHORT).show();
             }
@@ -61,6 +71,17 @@ public class MainActivity extends AppCompatActivity implements OCRHelper.OCRList
             Intent intent = new Intent(MainActivity.this, ButtonCalculatorActivity.class);
             startActivity(intent);
         });
+
+        importImageButton.setOnClickListener(v -> pickImage.launch("image/*"));
+    }
+
+    private void solveImportedImage(Uri uri) {
+        if (uri == null) {
+            return; // Picker cancelled
+        }
+        equationText.setText("Processing image...");
+        resultText.setText("Recognizing equations...");
+        ocrHelper.recognizeTextFromImage(getContentResolver(), uri, this);
     }
 
     private void setupUserGuidance() {
@@ -73,16 +94,16 @@ public class MainActivity extends AppCompatActivity implements OCRHelper.OCRList
     public void onOCRSuccess(String recognizedText) {
         runOnUiThread(() -> {
             if (recognizedText != null && !recognizedText.trim().isEmpty()) {
-                String finalText = finalCleanText(recognizedText);
+                String finalText = MathTextCleaner.finalClean(recognizedText);
                 equationText.setText("Recognized: " + finalText);
 
                 // Validate if it looks like a math expression
-                if (isValidMathExpression(finalText)) {
-                    try {
-                        double result = mathParser.evaluateExpression(finalText);
-                        String resultString = formatResult(result);
+                if (MathTextCleaner.isMathExpression(finalText)) {
+                    EvaluationResult result = mathParser.tryEvaluate(finalText);
+                    if (result.isSuccess()) {
+                        String resultString = formatResult(result.getValue());
                         resultText.setText("✓ Result: " + resultString);
-                    } catch (Exception e) {
+                    } else {
                         resultText.setText("✗ Can't solve: " + finalText + "\nTry writing more clearly");
                     }
                 } else {
@@ -95,6 +116,48 @@ public class MainActivity extends AppCompatActivity implements OCRHelper.OCRList
         });
     }
 
+    // MultiLineListener implementation
+    @Override
+    public void onLinesRecognized(List<OCRHelper.LineResult> lines) {
+        if (lines.isEmpty()) {
+            onOCRSuccess("");
+            return;
+        }
+        if (lines.size() == 1) {
+            // Already solved by OCRHelper, cleaning it again could change what is shown
+            OCRHelper.LineResult line = lines.get(0);
+            runOnUiThread(() -> {
+                equationText.setText("Recognized: " + line.getExpression());
+                if (line.isSolved()) {
+                    resultText.setText("✓ Result: " + formatResult(line.getValue()));
+                } else {
+                    resultText.setText("✗ Can't solve: " + line.getExpression() + "\nTry writing more clearly");
+                }
+            });
+            return;
+        }
+
+        StringBuilder equations = new StringBuilder("Recognized " + lines.size() + " lines:");
+        StringBuilder results = new StringBuilder();
+        for (OCRHelper.LineResult line : lines) {
+            equations.append("\n").append(line.getExpression());
+            if (results.length() > 0) {
+                results.append("\n");
+            }
+            if (line.isSolved()) {
+                results.append("✓ ").append(line.getExpression())
+                        .append(" = ").append(formatResult(line.getValue()));
+            } else {
+                results.append("✗ ").append(line.getExpression());
+            }
+        }
+
+        runOnUiThread(() -> {
+            equationText.setText(equations.toString());
+            resultText.setText(results.toString());
+        });
+    }
+
     @Override
     public void onOCRError(String error) {
         runOnUiThread(() -> {
@@ -104,23 +167,6 @@ public class MainActivity extends AppCompatActivity implements OCRHelper.OCRList
         });
     }
 
-    private String finalCleanText(String text) {
-        if (text == null || text.isEmpty()) {
-            return "";
-        }
-
-        // Additional cleaning specific to mathematical expressions
-        return text
-                .replaceAll("[^0-9+\\-*/().]", "") // Keep only math characters
-                .replaceAll("\\+\\+", "+")          // Remove duplicate operators
-                .replaceAll("--", "-")
-                .replaceAll("\\*\\*", "*")
-                .replaceAll("//", "/")
-                .replaceAll("\\.\\.", ".")          // Remove duplicate decimals
-                .replaceAll("\\(", "(")             // Ensure proper parentheses
-                .replaceAll("\\)", ")");
-    }
-
     private String formatResult(double result) {
         if (result == (int) result) {
             return String.valueOf((int) result);
@@ -131,27 +177,6 @@ public class MainActivity extends AppCompatActivity implements OCRHelper.OCRList
         }
     }
 
-    private boolean isValidMathExpression(String expression) {
-        if (expression == null || expression.isEmpty()) {
-            return false;
-        }
-
-        // Basic check for valid math characters
-        if (!expression.matches("[0-9+\\-*/().]+")) {
-            return false;
-        }
-
-        // Check for balanced parentheses
-        int balance = 0;
-        for (char c : expression.toCharArray()) {
-            if (c == '(') balance++;
-            if (c == ')') balance--;
-            if (balance < 0) return false;
-        }
-
-        return balance == 0;
-    }
-
     @Override
     protected void onDestroy() {
         super.onDestroy();
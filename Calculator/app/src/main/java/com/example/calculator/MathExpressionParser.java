@@ -1,26 +1,90 @@
 package com.example.calculator;
 
-import java.util.Stack;
+import com.example.calculator.EvaluationResult.ErrorCode;
+import com.example.calculator.MathRegistry.Operator;
+import com.example.calculator.MathRegistry.UnaryFunction;
 
 public class MathExpressionParser {
 
+    // Operator stack markers, registry operators are never control characters
+    private static final char OPEN_PARENTHESIS = '(';
+    private static final char FUNCTION_CALL = '\u0001';
+    private static final char UNARY_MINUS = '\u0002';
+
+    private final MathRegistry registry;
+
+    public MathExpressionParser() {
+        this(MathRegistry.standard());
+    }
+
+    // Pass MathRegistry.fastMath() to opt into the approximate kernels
+    public MathExpressionParser(MathRegistry registry) {
+        this.registry = registry;
+    }
+
+    MathRegistry getRegistry() {
+        return registry;
+    }
+
     public double evaluateExpression(String expression) {
-        try {
-            // Remove spaces and handle common variations
-            expression = expression.replaceAll("\\s+", "")
-                    .replaceAll("x", "*")
-                    .replaceAll("X", "*")
-                    .replaceAll("÷", "/");
+        EvaluationResult result = tryEvaluate(expression);
+        if (!result.isSuccess()) {
+            String normalized = expression == null ? null : normalize(expression);
+            throw new IllegalArgumentException("Invalid mathematical expression: " + normalized);
+        }
+        return result.getValue();
+    }
 
-            // Validate expression
-            if (!isValidMathExpression(expression)) {
-                throw new IllegalArgumentException("Invalid mathematical expression");
-            }
+    /**
+     * Evaluates without throwing, for hot paths like live typing where incomplete input
+     * such as "5+" or "(3*" is the common case. Error positions refer to the normalized
+     * expression (spaces removed).
+     */
+    public EvaluationResult tryEvaluate(String expression) {
+        if (expression == null) {
+            return EvaluationResult.failure(ErrorCode.EMPTY, 0);
+        }
+
+        expression = normalize(expression);
 
-            return eval(expression);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Invalid mathematical expression: " + expression);
+        // Validate expression
+        EvaluationResult invalid = validate(expression);
+        if (invalid != null) {
+            return invalid;
         }
+
+        return eval(expression);
+    }
+
+    // Remove spaces and handle common variations
+    String normalize(String expression) {
+        StringBuilder sb = new StringBuilder(expression.length());
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            switch (c) {
+                case ' ':
+                case '\t':
+                case '\n':
+                case '\u000B':
+                case '\f':
+                case '\r':
+                    break;
+                case 'x':
+                case 'X':
+                    // Multiplication sign, unless it is part of a name such as "exp"
+                    boolean inName = (i > 0 && MathRegistry.isIdentifierStart(expression.charAt(i - 1)))
+                            || (i + 1 < expression.length()
+                            && MathRegistry.isIdentifierStart(expression.charAt(i + 1)));
+                    sb.append(inName ? c : '*');
+                    break;
+                case '÷':
+                    sb.append('/');
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
     }
 
     // Add this missing method
@@ -29,118 +93,356 @@ public class MathExpressionParser {
     }
 
     private boolean isValidMathExpression(String expression) {
-        // Basic validation for mathematical expressions
-        if (expression == null || expression.isEmpty()) {
-            return false;
-        }
+        return expression != null && validate(expression) == null;
+    }
 
-        // Check for valid characters
-        if (!expression.matches("[0-9+\\-*/().]+")) {
-            return false;
+    // Basic validation for mathematical expressions, null when valid
+    EvaluationResult validate(String expression) {
+        if (expression.isEmpty()) {
+            return EvaluationResult.failure(ErrorCode.EMPTY, 0);
         }
 
-        // Check for balanced parentheses
+        // Check for valid characters, known names and balanced parentheses
         int balance = 0;
-        for (char c : expression.toCharArray()) {
-            if (c == '(') balance++;
-            if (c == ')') balance--;
-            if (balance < 0) return false;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '(') {
+                balance++;
+            } else if (c == ')') {
+                balance--;
+                if (balance < 0) {
+                    return EvaluationResult.failure(ErrorCode.UNBALANCED_PARENTHESES, i);
+                }
+            } else if (MathRegistry.isIdentifierStart(c)) {
+                int end = identifierEnd(expression, i);
+                String name = expression.substring(i, end);
+                if (registry.getFunction(name) == null && !registry.isConstant(name)) {
+                    return EvaluationResult.failure(ErrorCode.UNKNOWN_IDENTIFIER, i);
+                }
+                i = end - 1;
+            } else if (!isDigit(c) && c != '.' && registry.getOperator(c) == null) {
+                return EvaluationResult.failure(ErrorCode.INVALID_CHARACTER, i);
+            }
         }
 
-        return balance == 0;
+        if (balance != 0) {
+            return EvaluationResult.failure(ErrorCode.UNBALANCED_PARENTHESES, expression.length());
+        }
+        return null;
     }
 
-    private double eval(String expression) {
-        Stack<Double> numbers = new Stack<>();
-        Stack<Character> operators = new Stack<>();
+    // Expects a normalized expression, ParallelExpressionEvaluator calls it on fragments
+    EvaluationResult eval(String expression) {
+        return eval(expression, new Values(expression.length()));
+    }
+
+    // Same parse, with the operands built by the caller, see Operands
+    EvaluationResult eval(String expression, Operands operands) {
+        Evaluation state = new Evaluation(expression.length(), operands);
+        // True at the start, after an operator and after an opening parenthesis
+        boolean expectOperand = true;
 
         for (int i = 0; i < expression.length(); i++) {
             char c = expression.charAt(i);
 
             // If character is a digit or decimal point, parse the number
-            if (Character.isDigit(c) || c == '.') {
-                StringBuilder sb = new StringBuilder();
+            if (isDigit(c) || c == '.') {
+                if (!expectOperand) {
+                    return EvaluationResult.failure(ErrorCode.MISSING_OPERATOR, i);
+                }
+                int start = i;
                 while (i < expression.length() &&
-                        (Character.isDigit(expression.charAt(i)) || expression.charAt(i) == '.')) {
-                    sb.append(expression.charAt(i++));
+                        (isDigit(expression.charAt(i)) || expression.charAt(i) == '.')) {
+                    i++;
+                }
+                double number = parseNumber(expression, start, i);
+                if (Double.isNaN(number)) {
+                    return EvaluationResult.failure(ErrorCode.INVALID_NUMBER, start);
                 }
                 i--;
-                try {
-                    numbers.push(Double.parseDouble(sb.toString()));
-                } catch (NumberFormatException e) {
-                    throw new IllegalArgumentException("Invalid number: " + sb.toString());
+                operands.pushNumber(number);
+                expectOperand = false;
+            }
+            // Constant, or function name followed by its argument in parentheses
+            else if (MathRegistry.isIdentifierStart(c)) {
+                if (!expectOperand) {
+                    return EvaluationResult.failure(ErrorCode.MISSING_OPERATOR, i);
+                }
+                int end = identifierEnd(expression, i);
+                String name = expression.substring(i, end);
+                UnaryFunction function = registry.getFunction(name);
+                if (function != null) {
+                    if (end >= expression.length() || expression.charAt(end) != '(') {
+                        return EvaluationResult.failure(ErrorCode.MISSING_OPERAND, end);
+                    }
+                    state.pushFunction(function);
+                    i = end; // Skip the opening parenthesis
+                } else if (registry.isConstant(name)) {
+                    operands.pushNumber(registry.getConstant(name));
+                    expectOperand = false;
+                    i = end - 1;
+                } else {
+                    return EvaluationResult.failure(ErrorCode.UNKNOWN_IDENTIFIER, i);
                 }
             }
             // If opening parenthesis, push to operators stack
             else if (c == '(') {
-                operators.push(c);
+                if (!expectOperand) {
+                    return EvaluationResult.failure(ErrorCode.MISSING_OPERATOR, i);
+                }
+                state.pushOperator(OPEN_PARENTHESIS);
             }
             // If closing parenthesis, solve entire brace
             else if (c == ')') {
-                while (!operators.isEmpty() && operators.peek() != '(') {
-                    numbers.push(applyOperation(operators.pop(), numbers.pop(), numbers.pop()));
+                if (expectOperand) {
+                    return EvaluationResult.failure(ErrorCode.MISSING_OPERAND, i);
                 }
-                if (!operators.isEmpty() && operators.peek() == '(') {
-                    operators.pop();
-                } else {
-                    throw new IllegalArgumentException("Mismatched parentheses");
+                while (state.operatorCount > 0 && !state.isGroupOnTop()) {
+                    ErrorCode error = state.reduce();
+                    if (error != null) {
+                        return EvaluationResult.failure(error, i);
+                    }
+                }
+                if (state.operatorCount == 0) {
+                    return EvaluationResult.failure(ErrorCode.UNBALANCED_PARENTHESES, i);
+                }
+                // Applies the function for a call, just drops a plain parenthesis
+                ErrorCode error = state.reduce();
+                if (error != null) {
+                    return EvaluationResult.failure(error, i);
+                }
+            }
+            // Leading or post-operator sign
+            else if (expectOperand && (c == '-' || c == '+')) {
+                if (c == '-') {
+                    state.pushOperator(UNARY_MINUS);
                 }
             }
             // If operator, process according to precedence
-            else if (isOperator(c)) {
-                while (!operators.isEmpty() && hasPrecedence(c, operators.peek())) {
-                    numbers.push(applyOperation(operators.pop(), numbers.pop(), numbers.pop()));
+            else if (registry.getOperator(c) != null) {
+                if (expectOperand) {
+                    return EvaluationResult.failure(ErrorCode.MISSING_OPERAND, i);
                 }
-                operators.push(c);
+                Operator operator = registry.getOperator(c);
+                while (state.operatorCount > 0 && hasPrecedence(operator, state.topOperator())) {
+                    ErrorCode error = state.reduce();
+                    if (error != null) {
+                        return EvaluationResult.failure(error, i);
+                    }
+                }
+                state.pushOperator(c);
+                expectOperand = true;
             } else {
-                throw new IllegalArgumentException("Invalid character: " + c);
+                return EvaluationResult.failure(ErrorCode.INVALID_CHARACTER, i);
             }
         }
 
+        if (expectOperand) {
+            return EvaluationResult.failure(ErrorCode.MISSING_OPERAND, expression.length());
+        }
+
         // Process remaining operators
-        while (!operators.isEmpty()) {
-            if (operators.peek() == '(') {
-                throw new IllegalArgumentException("Mismatched parentheses");
+        while (state.operatorCount > 0) {
+            if (state.isGroupOnTop()) {
+                return EvaluationResult.failure(ErrorCode.UNBALANCED_PARENTHESES, expression.length());
+            }
+            ErrorCode error = state.reduce();
+            if (error != null) {
+                return EvaluationResult.failure(error, expression.length());
             }
-            numbers.push(applyOperation(operators.pop(), numbers.pop(), numbers.pop()));
         }
 
-        if (numbers.size() != 1) {
-            throw new IllegalArgumentException("Invalid expression");
+        if (operands.size() != 1) {
+            return EvaluationResult.failure(ErrorCode.MISSING_OPERATOR, expression.length());
         }
 
-        return numbers.pop();
+        return EvaluationResult.success(operands.result());
     }
 
-    private boolean isOperator(char c) {
-        return c == '+' || c == '-' || c == '*' || c == '/';
+    // Whether the stacked operator must be applied before pushing the incoming one
+    private boolean hasPrecedence(Operator incoming, char stacked) {
+        int stackedPrecedence;
+        if (stacked == UNARY_MINUS) {
+            stackedPrecedence = MathRegistry.UNARY_MINUS_PRECEDENCE;
+        } else if (stacked == OPEN_PARENTHESIS || stacked == FUNCTION_CALL) {
+            return false;
+        } else {
+            stackedPrecedence = registry.getOperator(stacked).getPrecedence();
+        }
+
+        if (stackedPrecedence != incoming.getPrecedence()) {
+            return stackedPrecedence > incoming.getPrecedence();
+        }
+        return !incoming.isRightAssociative();
     }
 
-    private boolean hasPrecedence(char op1, char op2) {
-        if (op2 == '(' || op2 == ')') {
-            return false;
+    /**
+     * Operand side of the shunting-yard: eval pushes numbers and applies operators in
+     * evaluation order, so the same parse can compute values or build expression trees
+     * (BatchExpressionEvaluator). Operations find their arguments on top of the stack and
+     * return null on success, or the error that stops evaluation.
+     */
+    interface Operands {
+        void pushNumber(double value);
+
+        ErrorCode negate();
+
+        ErrorCode apply(UnaryFunction function);
+
+        ErrorCode apply(Operator operator);
+
+        int size();
+
+        // Value of the single operand left at the end
+        double result();
+    }
+
+    // Operator stack; it cannot hold more entries than there are characters
+    private final class Evaluation {
+        final char[] operators;
+        final UnaryFunction[] functions;
+        final Operands operands;
+        int operatorCount;
+
+        Evaluation(int length, Operands operands) {
+            this.operators = new char[length];
+            this.functions = new UnaryFunction[length];
+            this.operands = operands;
         }
-        if ((op1 == '*' || op1 == '/') && (op2 == '+' || op2 == '-')) {
-            return false;
+
+        void pushOperator(char operator) {
+            operators[operatorCount++] = operator;
+        }
+
+        void pushFunction(UnaryFunction function) {
+            functions[operatorCount] = function;
+            operators[operatorCount++] = FUNCTION_CALL;
+        }
+
+        char topOperator() {
+            return operators[operatorCount - 1];
+        }
+
+        boolean isGroupOnTop() {
+            char top = topOperator();
+            return top == OPEN_PARENTHESIS || top == FUNCTION_CALL;
+        }
+
+        // Pops and applies the top operator, null on success
+        ErrorCode reduce() {
+            char operator = operators[--operatorCount];
+
+            if (operator == OPEN_PARENTHESIS) {
+                return null;
+            }
+
+            if (operands.size() < 1) {
+                return ErrorCode.MISSING_OPERAND;
+            }
+
+            if (operator == UNARY_MINUS) {
+                return operands.negate();
+            }
+
+            if (operator == FUNCTION_CALL) {
+                UnaryFunction function = functions[operatorCount];
+                functions[operatorCount] = null;
+                return operands.apply(function);
+            }
+
+            if (operands.size() < 2) {
+                return ErrorCode.MISSING_OPERAND;
+            }
+            return operands.apply(registry.getOperator(operator));
         }
-        return true;
     }
 
-    private double applyOperation(char op, double b, double a) {
-        switch (op) {
-            case '+':
-                return a + b;
-            case '-':
-                return a - b;
-            case '*':
-                return a * b;
-            case '/':
-                if (b == 0) {
-                    throw new UnsupportedOperationException("Cannot divide by zero");
-                }
-                return a / b;
-            default:
-                throw new UnsupportedOperationException("Unknown operator: " + op);
+    // Computes values as it goes; the stack cannot hold more numbers than there are characters
+    private static final class Values implements Operands {
+        final double[] numbers;
+        int numberCount;
+
+        Values(int length) {
+            numbers = new double[length];
+        }
+
+        @Override
+        public void pushNumber(double value) {
+            numbers[numberCount++] = value;
+        }
+
+        @Override
+        public ErrorCode negate() {
+            numbers[numberCount - 1] = -numbers[numberCount - 1];
+            return null;
+        }
+
+        @Override
+        public ErrorCode apply(UnaryFunction function) {
+            double argument = numbers[numberCount - 1];
+            double result = function.apply(argument);
+            ErrorCode error = checkFunctionResult(argument, result);
+            if (error != null) {
+                return error;
+            }
+            numbers[numberCount - 1] = result;
+            return null;
+        }
+
+        @Override
+        public ErrorCode apply(Operator operator) {
+            double b = numbers[--numberCount];
+            double a = numbers[numberCount - 1];
+            double result = operator.apply(a, b);
+            ErrorCode error = operator.checkResult(a, b, result);
+            if (error != null) {
+                return error;
+            }
+            numbers[numberCount - 1] = result;
+            return null;
         }
+
+        @Override
+        public int size() {
+            return numberCount;
+        }
+
+        @Override
+        public double result() {
+            return numbers[0];
+        }
+    }
+
+    // NaN or overflow from a finite argument, e.g. sqrt(-1) or ln(0)
+    static ErrorCode checkFunctionResult(double argument, double result) {
+        if (!Double.isNaN(argument) && !Double.isInfinite(argument)
+                && (Double.isNaN(result) || Double.isInfinite(result))) {
+            return ErrorCode.DOMAIN_ERROR;
+        }
+        return null;
+    }
+
+    private int identifierEnd(String expression, int start) {
+        int end = start + 1;
+        while (end < expression.length() && MathRegistry.isIdentifierPart(expression.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    // NaN for malformed literals such as "1.2.3" or "."
+    private double parseNumber(String expression, int start, int end) {
+        int dots = 0;
+        for (int i = start; i < end; i++) {
+            if (expression.charAt(i) == '.') dots++;
+        }
+        if (dots > 1 || end - start == dots) {
+            return Double.NaN;
+        }
+        return Double.parseDouble(expression.substring(start, end));
+    }
+
+    private boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 }
\ No newline at end of file
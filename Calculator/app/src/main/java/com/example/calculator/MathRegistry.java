@@ -0,0 +1,185 @@
+package com.example.calculator;
+
+import com.example.calculator.EvaluationResult.ErrorCode;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Operators, functions and constants understood by {@link MathExpressionParser}.
+ * Start from {@link #standard()} or {@link #fastMath()} and register more as needed.
+ */
+public class MathRegistry {
+
+    // Unary minus binds tighter than * and / but looser than ^, so -2^2 is -4
+    public static final int UNARY_MINUS_PRECEDENCE = 3;
+
+    public interface UnaryFunction {
+        double apply(double x);
+    }
+
+    public interface BinaryFunction {
+        double apply(double a, double b);
+    }
+
+    public static final class Operator {
+        private final char symbol;
+        private final int precedence;
+        private final boolean rightAssociative;
+        private final BinaryFunction function;
+        private final ErrorCode undefinedError;
+
+        Operator(char symbol, int precedence, boolean rightAssociative,
+                 BinaryFunction function, ErrorCode undefinedError) {
+            this.symbol = symbol;
+            this.precedence = precedence;
+            this.rightAssociative = rightAssociative;
+            this.function = function;
+            this.undefinedError = undefinedError;
+        }
+
+        public char getSymbol() {
+            return symbol;
+        }
+
+        public int getPrecedence() {
+            return precedence;
+        }
+
+        public boolean isRightAssociative() {
+            return rightAssociative;
+        }
+
+        public double apply(double a, double b) {
+            return function.apply(a, b);
+        }
+
+        // Reported when the operator returns NaN for non-NaN operands
+        public ErrorCode getUndefinedError() {
+            return undefinedError;
+        }
+
+        /**
+         * Error for {@code result = apply(a, b)}, null when it is defined. Like functions,
+         * an overflow to infinity from finite operands, e.g. 10^400, is a DOMAIN_ERROR.
+         */
+        public ErrorCode checkResult(double a, double b, double result) {
+            if (Double.isNaN(result)) {
+                return Double.isNaN(a) || Double.isNaN(b) ? null : undefinedError;
+            }
+            if (Double.isInfinite(result) && !Double.isInfinite(a) && !Double.isInfinite(b)) {
+                return ErrorCode.DOMAIN_ERROR;
+            }
+            return null;
+        }
+    }
+
+    // Indexed by symbol, operators are restricted to ASCII punctuation
+    private final Operator[] operators = new Operator[128];
+    private final Map<String, UnaryFunction> functions = new HashMap<>();
+    private final Map<String, Double> constants = new HashMap<>();
+
+    public static MathRegistry standard() {
+        MathRegistry registry = basicArithmetic();
+        registry.registerFunction("sqrt", Math::sqrt);
+        registry.registerFunction("sin", Math::sin);
+        registry.registerFunction("cos", Math::cos);
+        registry.registerFunction("tan", Math::tan);
+        registry.registerFunction("ln", Math::log);
+        registry.registerFunction("log", Math::log10);
+        registry.registerFunction("exp", Math::exp);
+        registry.registerFunction("abs", Math::abs);
+        return registry;
+    }
+
+    /**
+     * Same functions as {@link #standard()}, with sin, cos, ln, log and exp replaced by
+     * the {@link FastMath} kernels. See FastMath for the error bounds.
+     */
+    public static MathRegistry fastMath() {
+        MathRegistry registry = standard();
+        registry.registerFunction("sin", FastMath::sin);
+        registry.registerFunction("cos", FastMath::cos);
+        registry.registerFunction("ln", FastMath::log);
+        registry.registerFunction("log", FastMath::log10);
+        registry.registerFunction("exp", FastMath::exp);
+        return registry;
+    }
+
+    private static MathRegistry basicArithmetic() {
+        MathRegistry registry = new MathRegistry();
+        registry.registerOperator('+', 1, false, (a, b) -> a + b);
+        registry.registerOperator('-', 1, false, (a, b) -> a - b);
+        registry.registerOperator('*', 2, false, (a, b) -> a * b);
+        registry.registerOperator('/', 2, false, (a, b) -> b == 0 ? Double.NaN : a / b,
+                ErrorCode.DIVISION_BY_ZERO);
+        registry.registerOperator('^', 4, true, Math::pow);
+        registry.registerConstant("pi", Math.PI);
+        registry.registerConstant("e", Math.E);
+        return registry;
+    }
+
+    public MathRegistry registerOperator(char symbol, int precedence, boolean rightAssociative,
+                                         BinaryFunction function) {
+        return registerOperator(symbol, precedence, rightAssociative, function, ErrorCode.DOMAIN_ERROR);
+    }
+
+    public MathRegistry registerOperator(char symbol, int precedence, boolean rightAssociative,
+                                         BinaryFunction function, ErrorCode undefinedError) {
+        if (symbol >= operators.length || Character.isLetterOrDigit(symbol)
+                || Character.isWhitespace(symbol) || symbol == '(' || symbol == ')' || symbol == '.') {
+            throw new IllegalArgumentException("Invalid operator symbol: " + symbol);
+        }
+        operators[symbol] = new Operator(symbol, precedence, rightAssociative, function, undefinedError);
+        return this;
+    }
+
+    public MathRegistry registerFunction(String name, UnaryFunction function) {
+        checkName(name);
+        constants.remove(name);
+        functions.put(name, function);
+        return this;
+    }
+
+    public MathRegistry registerConstant(String name, double value) {
+        checkName(name);
+        functions.remove(name);
+        constants.put(name, value);
+        return this;
+    }
+
+    private void checkName(String name) {
+        if (name == null || name.isEmpty() || !isIdentifierStart(name.charAt(0))) {
+            throw new IllegalArgumentException("Invalid name: " + name);
+        }
+        for (int i = 1; i < name.length(); i++) {
+            if (!isIdentifierPart(name.charAt(i))) {
+                throw new IllegalArgumentException("Invalid name: " + name);
+            }
+        }
+    }
+
+    public Operator getOperator(char symbol) {
+        return symbol < operators.length ? operators[symbol] : null;
+    }
+
+    public UnaryFunction getFunction(String name) {
+        return functions.get(name);
+    }
+
+    public boolean isConstant(String name) {
+        return constants.containsKey(name);
+    }
+
+    public double getConstant(String name) {
+        Double value = constants.get(name);
+        return value == null ? Double.NaN : value;
+    }
+
+    static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9');
+    }
+}
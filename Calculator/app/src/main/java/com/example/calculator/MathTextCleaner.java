@@ -0,0 +1,219 @@
+package com.example.calculator;
+
+/**
+ * Text cleanup between recognition and MathExpressionParser, shared by OCRHelper,
+ * MainActivity and the JVM tests.
+ */
+public final class MathTextCleaner {
+
+    // Operators and names the cleaned text may keep, as MathExpressionParser accepts them
+    private static final MathRegistry REGISTRY = MathRegistry.standard();
+
+    private MathTextCleaner() {
+    }
+
+    // Maps characters OCR commonly confuses with digits and operators
+    public static String cleanRecognizedText(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+
+        // Multiple cleaning passes for better accuracy
+        String compact = text.replaceAll("\\s+", "");  // Remove all spaces
+
+        // First pass: Common OCR errors, outside function and constant names so that
+        // "sqrt" or "pi" are not read as digits
+        StringBuilder fixed = new StringBuilder(compact.length());
+        int start = 0;
+        for (int i = 0; i < compact.length(); i++) {
+            int end = knownNameEnd(compact, i);
+            if (end > i) {
+                fixed.append(fixConfusedCharacters(compact.substring(start, i))).append(compact, i, end);
+                start = end;
+                i = end - 1;
+            }
+        }
+        String cleaned = fixed.append(fixConfusedCharacters(compact.substring(start))).toString();
+
+        // Second pass: Fix common operator confusions
+        cleaned = cleaned
+                .replaceAll("\\+\\+", "+")    // Fix double plus
+                .replaceAll("\\*\\*", "*")    // Fix double multiply
+                .replaceAll("//", "/")        // Fix double divide
+                .replaceAll("=", "")          // Remove equals signs
+                .replaceAll(",", ".")         // Commas as decimals
+                .replaceAll(";", ".");        // Semicolons as decimals
+
+        // Third pass: Validate and fix structure
+        cleaned = fixCommonPatterns(cleaned);
+
+        return cleaned;
+    }
+
+    private static String fixConfusedCharacters(String text) {
+        return text
+                .replaceAll("[lL|!I]", "1")  // Common OCR error: l/L/|/!/I as 1
+                .replaceAll("[oO]", "0")   // Common OCR error: o/O as 0
+                .replaceAll("[sS]", "5")   // Common OCR error: s/S as 5
+                .replaceAll("[zZ]", "2")   // Common OCR error: z/Z as 2
+                .replaceAll("[aA]", "4")   // Common OCR error: a/A as 4
+                .replaceAll(":", "/")      // Common OCR error: : as /
+                .replaceAll("[{}]", "()")  // Replace curly braces with parentheses
+                .replaceAll("\\[", "(")    // Replace square brackets with parentheses
+                .replaceAll("\\]", ")")
+                .replaceAll("'", "")       // Remove apostrophes
+                .replaceAll("\"", "")      // Remove quotes
+                .replaceAll("`", "")       // Remove backticks
+                .replaceAll("i", "1")      // Lower i as 1
+                .replaceAll("B", "8")      // B as 8
+                .replaceAll("b", "6")      // b as 6
+                .replaceAll("g", "9")      // g as 9
+                .replaceAll("q", "9")      // q as 9
+                .replaceAll("t", "7")      // t as 7
+                .replaceAll("T", "7")      // T as 7
+                .replaceAll("Y", "7")      // Y as 7
+                .replaceAll("Z", "2")      // Z as 2
+                .replaceAll("S", "5");     // S as 5
+    }
+
+    private static String fixCommonPatterns(String text) {
+        if (text == null || text.length() < 2) {
+            return text;
+        }
+
+        StringBuilder result = new StringBuilder();
+        char[] chars = text.toCharArray();
+
+        for (int i = 0; i < chars.length; i++) {
+            char current = chars[i];
+
+            // Skip an operator right after another one (keep the first), but not a
+            // minus sign, which makes the next operand negative as in "3*-2"
+            if (i > 0 && current != '-' && isOperator(current) && isOperator(chars[i-1])) {
+                continue;
+            }
+
+            // Fix patterns like "23" becoming "23" (no change needed)
+            result.append(current);
+        }
+
+        return result.toString();
+    }
+
+    private static boolean isOperator(char c) {
+        return REGISTRY.getOperator(c) != null;
+    }
+
+    // Keeps only characters and names the solve path understands
+    public static String finalClean(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+
+        // Additional cleaning specific to mathematical expressions
+        return keepMathCharacters(text)
+                .replaceAll("\\+\\+", "+")          // Remove duplicate operators
+                .replaceAll("\\*\\*", "*")
+                .replaceAll("//", "/")
+                .replaceAll("\\.\\.", ".")          // Remove duplicate decimals
+                .replaceAll("\\(", "(")             // Ensure proper parentheses
+                .replaceAll("\\)", ")");
+    }
+
+    // Digits, '.', parentheses, operators and function or constant names; x and ÷ become * and /.
+    // Other letters are dropped, unless that would join the digits on either side into one number
+    private static String keepMathCharacters(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isLetter(c)) {
+                int end = knownNameEnd(text, i);
+                if (end == i) {
+                    end = i + 1;
+                    while (end < text.length() && isLetter(text.charAt(end)) && knownNameEnd(text, end) == end) {
+                        end++;
+                    }
+                    String letters = text.substring(i, end);
+                    if (letters.equals("x") || letters.equals("X")) {
+                        result.append('*');
+                    } else if (result.length() > 0 && isNumberPart(result.charAt(result.length() - 1))
+                            && end < text.length() && isNumberPart(text.charAt(end))) {
+                        // Left for the parser to report rather than solving a different number
+                        result.append(letters);
+                    }
+                } else {
+                    result.append(text, i, end);
+                }
+                i = end - 1;
+            } else if (c == '÷') {
+                result.append('/');
+            } else if (isNumberPart(c) || c == '(' || c == ')' || isOperator(c)) {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    public static boolean isMathExpression(String expression) {
+        if (expression == null || expression.isEmpty()) {
+            return false;
+        }
+
+        // Basic check for valid math characters and known names
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (isLetter(c)) {
+                int end = nameEnd(expression, i);
+                if (!isKnownName(expression.substring(i, end))) {
+                    return false;
+                }
+                i = end - 1;
+            } else if (!((c >= '0' && c <= '9') || c == '.' || c == '(' || c == ')' || isOperator(c))) {
+                return false;
+            }
+        }
+
+        // Check for balanced parentheses
+        int balance = 0;
+        for (char c : expression.toCharArray()) {
+            if (c == '(') balance++;
+            if (c == ')') balance--;
+            if (balance < 0) return false;
+        }
+
+        return balance == 0;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static int nameEnd(String text, int start) {
+        int end = start + 1;
+        while (end < text.length() && isLetter(text.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isNumberPart(char c) {
+        return (c >= '0' && c <= '9') || c == '.';
+    }
+
+    // End of the longest function or constant name starting at start, or start if there is none
+    private static int knownNameEnd(String text, int start) {
+        if (!isLetter(text.charAt(start))) {
+            return start;
+        }
+        for (int end = nameEnd(text, start); end > start; end--) {
+            if (isKnownName(text.substring(start, end))) {
+                return end;
+            }
+        }
+        return start;
+    }
+
+    private static boolean isKnownName(String name) {
+        return REGISTRY.getFunction(name) != null || REGISTRY.isConstant(name);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.calculator;
+
+import android.graphics.Bitmap;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.text.Text;
+import com.google.mlkit.vision.text.TextRecognizer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The ML Kit Latin text recognizer as a {@link RecognizerBackend}. Confidence is the
+ * mean of the per-line confidences ML Kit reports.
+ */
+public class MlKitBackend implements RecognizerBackend {
+    private final TextRecognizer textRecognizer;
+    // NV21 frame of the last finished recognition, handed to the next one of the same size
+    private final AtomicReference<byte[]> spareFrame = new AtomicReference<>();
+
+    public MlKitBackend(TextRecognizer textRecognizer) {
+        this.textRecognizer = textRecognizer;
+    }
+
+    @Override
+    public String getName() {
+        return "mlkit-latin";
+    }
+
+    @Override
+    public Recognition recognize(InkImage ink) throws Exception {
+        // Blocks this background thread, an interrupt abandons the wait
+        int width = ink.getWidth() & ~1;
+        int height = ink.getHeight() & ~1;
+        byte[] frame = takeFrame(width, height);
+        copyInverted(ink, frame, width, height);
+        Text visionText = Tasks.await(process(frame, width, height));
+
+        StringBuilder text = new StringBuilder();
+        float confidence = 0;
+        int lines = 0;
+        for (Text.TextBlock block : visionText.getTextBlocks()) {
+            for (Text.Line line : block.getLines()) {
+                if (text.length() > 0) {
+                    text.append('\n');
+                }
+                text.append(line.getText());
+                confidence += line.getConfidence();
+                lines++;
+            }
+        }
+        return new Recognition(text.toString(), lines == 0 ? 0 : Math.min(1, confidence / lines));
+    }
+
+    /**
+     * Recognizes an ALPHA_8 ink bitmap, such as DrawingView's. The alpha rows are copied
+     * straight into the luma plane of a reused NV21 frame and inverted there, so there is
+     * no intermediate copy of the ink.
+     */
+    Task<Text> process(Bitmap ink) {
+        // NV21 needs even dimensions, dropping the last row/column loses nothing visible
+        int width = ink.getWidth() & ~1;
+        int height = ink.getHeight() & ~1;
+        int rowBytes = ink.getRowBytes();
+        byte[] frame = takeFrame(width, height);
+        if ((long) rowBytes * ink.getHeight() > frame.length) {
+            // Tiny or heavily padded bitmap whose rows do not fit the frame, copy it first
+            ByteBuffer alpha = ByteBuffer.allocate(rowBytes * ink.getHeight());
+            ink.copyPixelsToBuffer(alpha);
+            copyInverted(new InkImage(alpha.array(), ink.getWidth(), ink.getHeight(), rowBytes), frame, width, height);
+            return process(frame, width, height);
+        }
+
+        ink.copyPixelsToBuffer(ByteBuffer.wrap(frame));
+        if (rowBytes != width) {
+            // Packs the rows; each one moves to a lower offset, so going down never overwrites
+            for (int y = 1; y < height; y++) {
+                System.arraycopy(frame, y * rowBytes, frame, y * width, width);
+            }
+        }
+        // Luma plane is the inverted ink coverage: dark ink on white paper
+        int lumaSize = width * height;
+        for (int i = 0; i < lumaSize; i++) {
+            frame[i] = (byte) ~frame[i];
+        }
+        // Neutral chroma
+        Arrays.fill(frame, lumaSize, frame.length, (byte) 128);
+        return process(frame, width, height);
+    }
+
+    // The frame goes back to the pool once ML Kit is done with it, even if the caller stopped waiting
+    private Task<Text> process(byte[] frame, int width, int height) {
+        return textRecognizer.process(InputImage.fromByteArray(frame, width, height, 0, InputImage.IMAGE_FORMAT_NV21))
+                .addOnCompleteListener(task -> spareFrame.set(frame));
+    }
+
+    private byte[] takeFrame(int width, int height) {
+        int size = width * height * 3 / 2;
+        byte[] frame = spareFrame.getAndSet(null);
+        return frame != null && frame.length == size ? frame : new byte[size];
+    }
+
+    // Inverted ink coverage as the luma plane, neutral chroma
+    private static void copyInverted(InkImage ink, byte[] nv21, int width, int height) {
+        int rowBytes = ink.getRowStride();
+        byte[] coverage = ink.getCoverage();
+        for (int y = 0; y < height; y++) {
+            int src = y * rowBytes;
+            int dst = y * width;
+            for (int x = 0; x < width; x++) {
+                nv21[dst + x] = (byte) ~coverage[src + x];
+            }
+        }
+        Arrays.fill(nv21, width * height, nv21.length, (byte) 128);
+    }
+}
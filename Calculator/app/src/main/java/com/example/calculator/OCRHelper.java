@@ -1,38 +1,172 @@
 package com.example.calculator;
 
+import android.content.ContentResolver;
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.ColorMatrix;
 import android.graphics.ColorMatrixColorFilter;
 import android.graphics.Paint;
 import android.graphics.Rect;
+import android.net.Uri;
+import android.os.Build;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.exifinterface.media.ExifInterface;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.mlkit.vision.common.InputImage;
 import com.google.mlkit.vision.text.Text;
 import com.google.mlkit.vision.text.TextRecognition;
 import com.google.mlkit.vision.text.TextRecognizer;
 import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class OCRHelper {
     private static final String TAG = "OCRHelper";
+    // ~1.2 MP preview is enough to locate text blocks
+    private static final int PREVIEW_MAX_PIXELS = 1280 * 960;
+    // Upper bound for any single decoded tile (8 MB as ARGB_8888)
+    private static final int TILE_MAX_PIXELS = 2_000_000;
+    private static final int REGION_MIN_PADDING = 16;
+    public static final float DEFAULT_CONFIDENCE_THRESHOLD = 0.7f;
+    public static final long DEFAULT_RACE_TIMEOUT_MILLIS = 5000;
     private TextRecognizer textRecognizer;
+    private MlKitBackend mlKitBackend;
+    // Registration order, the first backend is the primary one
+    private final Map<RecognizerBackend, BackendStats> backends = new LinkedHashMap<>();
+    private volatile float confidenceThreshold = DEFAULT_CONFIDENCE_THRESHOLD;
+    private volatile long raceTimeoutMillis = DEFAULT_RACE_TIMEOUT_MILLIS;
+    private final MathExpressionParser mathParser = new MathExpressionParser();
+    private ExecutorService lineExecutor;
+    private ExecutorService importExecutor;
+    private ExecutorService raceExecutor;
+    private ScheduledExecutorService raceTimer;
+    // Set by close(), after which no executor is created again
+    private boolean closed;
 
     public interface OCRListener {
         void onOCRSuccess(String recognizedText);
         void onOCRError(String error);
     }
 
+    public interface MultiLineListener {
+        // Lines are ordered top to bottom, may be called on a background thread
+        void onLinesRecognized(List<LineResult> lines);
+        void onOCRError(String error);
+    }
+
+    public static class LineResult {
+        private final int index;
+        private final String rawText;
+        private final String expression;
+        private final Rect boundingBox;
+        private final boolean solved;
+        private final double value;
+
+        LineResult(int index, String rawText, String expression, Rect boundingBox,
+                   boolean solved, double value) {
+            this.index = index;
+            this.rawText = rawText;
+            this.expression = expression;
+            this.boundingBox = boundingBox;
+            this.solved = solved;
+            this.value = value;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getRawText() {
+            return rawText;
+        }
+
+        public String getExpression() {
+            return expression;
+        }
+
+        public Rect getBoundingBox() {
+            return boundingBox;
+        }
+
+        public boolean isSolved() {
+            return solved;
+        }
+
+        public double getValue() {
+            return value;
+        }
+    }
+
     public OCRHelper() {
         initializeOCR();
     }
 
+    // Recognizes the canvas with the given backend instead of ML Kit
+    public OCRHelper(RecognizerBackend backend) {
+        addBackend(backend);
+    }
+
     private void initializeOCR() {
         // Initialize text recognizer with default options
         textRecognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
+        mlKitBackend = new MlKitBackend(textRecognizer);
+        addBackend(mlKitBackend);
+    }
+
+    // Adds a contender for raceTextFromBitmap
+    public synchronized void addBackend(RecognizerBackend backend) {
+        if (!backends.containsKey(backend)) {
+            backends.put(backend, new BackendStats(backend.getName()));
+        }
+    }
+
+    public synchronized List<BackendStats> getBackendStats() {
+        return new ArrayList<>(backends.values());
+    }
+
+    public float getConfidenceThreshold() {
+        return confidenceThreshold;
+    }
+
+    // Minimum confidence for a raced answer to win, in [0, 1]
+    public void setConfidenceThreshold(float confidenceThreshold) {
+        if (!(confidenceThreshold >= 0 && confidenceThreshold <= 1)) {
+            throw new IllegalArgumentException("Threshold must be in [0, 1]: " + confidenceThreshold);
+        }
+        this.confidenceThreshold = confidenceThreshold;
+    }
+
+    public long getRaceTimeoutMillis() {
+        return raceTimeoutMillis;
+    }
+
+    // A race still undecided after this long delivers the best answer so far, or an error
+    public void setRaceTimeoutMillis(long raceTimeoutMillis) {
+        if (raceTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive: " + raceTimeoutMillis);
+        }
+        this.raceTimeoutMillis = raceTimeoutMillis;
     }
 
     public void recognizeTextFromBitmap(Bitmap originalBitmap, OCRListener listener) {
@@ -47,12 +181,7 @@ public class OCRHelper {
         }
 
         try {
-            // Preprocess the image for better recognition
-            Bitmap processedBitmap = preprocessImage(originalBitmap);
-
-            InputImage image = InputImage.fromBitmap(processedBitmap, 0);
-
-            textRecognizer.process(image)
+            process(originalBitmap)
                     .addOnSuccessListener(new OnSuccessListener<Text>() {
                         @Override
                         public void onSuccess(Text visionText) {
@@ -75,6 +204,555 @@ public class OCRHelper {
         }
     }
 
+    /**
+     * Recognizes every line on the canvas separately and solves them concurrently,
+     * so a whole worksheet of equations is handled by one recognition call.
+     */
+    public void recognizeLinesFromBitmap(Bitmap originalBitmap, MultiLineListener listener) {
+        if (originalBitmap == null) {
+            listener.onOCRError("Bitmap is null");
+            return;
+        }
+
+        // ML Kit gets the bitmap directly, so line boxes are kept
+        if (textRecognizer == null && originalBitmap.getConfig() == Bitmap.Config.ALPHA_8) {
+            recognizeLinesFromInk(toInkImage(originalBitmap), listener);
+            return;
+        }
+
+        if (textRecognizer == null) {
+            listener.onOCRError("OCR not initialized");
+            return;
+        }
+
+        try {
+            process(originalBitmap)
+                    .addOnSuccessListener(new OnSuccessListener<Text>() {
+                        @Override
+                        public void onSuccess(Text visionText) {
+                            solveLines(collectLines(visionText), listener);
+                        }
+                    })
+                    .addOnFailureListener(new OnFailureListener() {
+                        @Override
+                        public void onFailure(@NonNull Exception e) {
+                            Log.e(TAG, "OCR failed: " + e.getMessage());
+                            listener.onOCRError("Recognition failed: " + e.getMessage());
+                        }
+                    });
+
+        } catch (Exception e) {
+            Log.e(TAG, "Image processing error: " + e.getMessage());
+            listener.onOCRError("Image processing error");
+        }
+    }
+
+    /**
+     * Same as {@link #recognizeLinesFromBitmap} for an ink plane, using the primary
+     * {@link RecognizerBackend}. Has no Android dependencies, so it also runs on the JVM.
+     */
+    public void recognizeLinesFromInk(InkImage ink, MultiLineListener listener) {
+        RecognizerBackend backend = getPrimaryBackend();
+        if (backend == null) {
+            listener.onOCRError("OCR not initialized");
+            return;
+        }
+
+        ExecutorService executor;
+        try {
+            executor = getLineExecutor();
+        } catch (RejectedExecutionException e) {
+            listener.onOCRError("OCR closed");
+            return;
+        }
+
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return backend.recognize(ink).getText();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor).whenComplete((text, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                Log.e(TAG, "OCR failed: " + cause.getMessage());
+                listener.onOCRError("Recognition failed: " + cause.getMessage());
+                return;
+            }
+
+            List<RecognizedLine> lines = new ArrayList<>();
+            for (String line : text.split("\n")) {
+                lines.add(new RecognizedLine(line, null));
+            }
+            solveLines(lines, listener);
+        });
+    }
+
+    private synchronized RecognizerBackend getPrimaryBackend() {
+        return backends.isEmpty() ? null : backends.keySet().iterator().next();
+    }
+
+    /**
+     * Sends the canvas to every backend at once and delivers the first answer whose
+     * confidence reaches the threshold; the other backends are then cancelled. If no
+     * answer is confident enough, the most confident one is delivered once all have
+     * finished, or when the race timeout expires, whichever comes first. Other bitmaps
+     * take the regular ML Kit path.
+     */
+    public void raceTextFromBitmap(Bitmap originalBitmap, OCRListener listener) {
+        if (originalBitmap == null) {
+            listener.onOCRError("Bitmap is null");
+            return;
+        }
+
+        if (originalBitmap.getConfig() != Bitmap.Config.ALPHA_8) {
+            recognizeTextFromBitmap(originalBitmap, listener);
+            return;
+        }
+
+        raceTextFromInk(toInkImage(originalBitmap), listener);
+    }
+
+    // Same as raceTextFromBitmap for an ink plane, also runs on the JVM
+    public void raceTextFromInk(InkImage ink, OCRListener listener) {
+        List<RecognizerBackend> contenders;
+        List<BackendStats> contenderStats;
+        synchronized (this) {
+            contenders = new ArrayList<>(backends.keySet());
+            contenderStats = new ArrayList<>(backends.values());
+        }
+        if (contenders.isEmpty()) {
+            listener.onOCRError("OCR not initialized");
+            return;
+        }
+
+        ExecutorService executor;
+        ScheduledExecutorService timer;
+        try {
+            executor = getRaceExecutor();
+            timer = getRaceTimer();
+        } catch (RejectedExecutionException e) {
+            listener.onOCRError("OCR closed");
+            return;
+        }
+
+        RecognizerRace race = new RecognizerRace(contenders, contenderStats, confidenceThreshold, listener);
+        try {
+            for (int i = 0; i < contenders.size(); i++) {
+                final int index = i;
+                contenderStats.get(i).recordEntered();
+                race.track(index, executor.submit(() -> race.run(index, ink)));
+            }
+            // A backend that ignores interruption must not keep the listener waiting forever
+            race.trackTimeout(timer.schedule(race::expire, raceTimeoutMillis, TimeUnit.MILLISECONDS));
+        } catch (RejectedExecutionException e) {
+            // close() shut the executors down after they were handed out
+            race.abort("OCR closed");
+        }
+    }
+
+    private List<RecognizedLine> collectLines(Text visionText) {
+        List<RecognizedLine> lines = new ArrayList<>();
+        addLines(visionText, lines, 0, 0, 1);
+        return joinRows(lines);
+    }
+
+    // Maps line boxes from a (possibly subsampled) tile back to source image coordinates
+    private void addLines(Text visionText, List<RecognizedLine> into, int offsetX, int offsetY, int scale) {
+        for (Text.TextBlock block : visionText.getTextBlocks()) {
+            for (Text.Line line : block.getLines()) {
+                Rect box = line.getBoundingBox();
+                if (box != null) {
+                    box = new Rect(offsetX + box.left * scale, offsetY + box.top * scale,
+                            offsetX + box.right * scale, offsetY + box.bottom * scale);
+                }
+                into.add(new RecognizedLine(line.getText(), box));
+            }
+        }
+    }
+
+    // Puts lines in reading order and joins the pieces of one written row, since ML Kit
+    // may split "12 + 3" into several lines or blocks that are not in reading order
+    private List<RecognizedLine> joinRows(List<RecognizedLine> lines) {
+        List<RecognizedLine> boxed = new ArrayList<>();
+        List<RecognizedLine> unboxed = new ArrayList<>();
+        for (RecognizedLine line : lines) {
+            if (line.box != null) {
+                boxed.add(line);
+            } else {
+                unboxed.add(line);
+            }
+        }
+        Collections.sort(boxed, (a, b) -> Integer.compare(a.box.top, b.box.top));
+
+        List<List<RecognizedLine>> rows = new ArrayList<>();
+        List<RecognizedLine> row = null;
+        int rowTop = 0;
+        int rowBottom = 0;
+        for (RecognizedLine line : boxed) {
+            if (row != null && sameRow(rowTop, rowBottom, line.box)) {
+                row.add(line);
+                rowTop = Math.min(rowTop, line.box.top);
+                rowBottom = Math.max(rowBottom, line.box.bottom);
+            } else {
+                row = new ArrayList<>();
+                row.add(line);
+                rows.add(row);
+                rowTop = line.box.top;
+                rowBottom = line.box.bottom;
+            }
+        }
+
+        List<RecognizedLine> joined = new ArrayList<>(rows.size() + unboxed.size());
+        for (List<RecognizedLine> pieces : rows) {
+            Collections.sort(pieces, (a, b) -> Integer.compare(a.box.left, b.box.left));
+            StringBuilder text = new StringBuilder(pieces.get(0).text);
+            Rect box = new Rect(pieces.get(0).box);
+            for (int i = 1; i < pieces.size(); i++) {
+                text.append(' ').append(pieces.get(i).text);
+                box.union(pieces.get(i).box);
+            }
+            joined.add(new RecognizedLine(text.toString(), box));
+        }
+        // Lines without a box go last, in their original order
+        joined.addAll(unboxed);
+        return joined;
+    }
+
+    // Vertical spans overlap by at least half of the shorter one, so a descender touching
+    // the next row does not merge the two
+    private static boolean sameRow(int rowTop, int rowBottom, Rect box) {
+        int overlap = Math.min(rowBottom, box.bottom) - Math.max(rowTop, box.top);
+        int shorter = Math.min(rowBottom - rowTop, box.bottom - box.top);
+        return overlap > 0 && overlap * 2 >= shorter;
+    }
+
+    private void solveLines(List<RecognizedLine> lines, MultiLineListener listener) {
+        ExecutorService executor;
+        try {
+            executor = getLineExecutor();
+        } catch (RejectedExecutionException e) {
+            // Recognition finished after close(), nobody is waiting for the result
+            Log.d(TAG, "Dropping " + lines.size() + " lines, OCRHelper is closed");
+            return;
+        }
+        List<CompletableFuture<LineResult>> futures = new ArrayList<>();
+
+        for (int i = 0; i < lines.size(); i++) {
+            final int index = i;
+            final RecognizedLine line = lines.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> solveLine(index, line), executor));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Line solving failed: " + error.getMessage());
+                        listener.onOCRError("Line solving failed");
+                        return;
+                    }
+
+                    List<LineResult> results = new ArrayList<>();
+                    for (CompletableFuture<LineResult> future : futures) {
+                        LineResult result = future.join();
+                        if (!result.getExpression().isEmpty()) {
+                            results.add(result);
+                        }
+                    }
+                    listener.onLinesRecognized(results);
+                });
+    }
+
+    private LineResult solveLine(int index, RecognizedLine line) {
+        String rawText = line.text.trim();
+        String expression = MathTextCleaner.finalClean(MathTextCleaner.cleanRecognizedText(rawText));
+        Log.d(TAG, "OCR Line " + index + ": " + rawText + " -> " + expression);
+
+        EvaluationResult result = mathParser.tryEvaluate(expression);
+        if (!result.isSuccess()) {
+            Log.d(TAG, "Can't solve line " + index + ": " + expression + " (" + result + ")");
+        }
+        return new LineResult(index, rawText, expression, line.box, result.isSuccess(), result.getValue());
+    }
+
+    private static class RecognizedLine {
+        final String text;
+        final Rect box;
+
+        RecognizedLine(String text, Rect box) {
+            this.text = text;
+            this.box = box;
+        }
+    }
+
+    /**
+     * Solves equations from an imported photo or screenshot without ever decoding it at
+     * full resolution: a bounds-only decode sizes a small preview, the preview locates
+     * the text, and only the text regions are decoded (subsampled if needed) one tile
+     * at a time. Peak bitmap memory is bounded by TILE_MAX_PIXELS whatever the source size.
+     */
+    public void recognizeTextFromImage(ContentResolver resolver, Uri uri, MultiLineListener listener) {
+        if (textRecognizer == null) {
+            listener.onOCRError("OCR not initialized");
+            return;
+        }
+
+        if (uri == null) {
+            listener.onOCRError("Image is null");
+            return;
+        }
+
+        ExecutorService executor;
+        try {
+            executor = getImportExecutor();
+        } catch (RejectedExecutionException e) {
+            listener.onOCRError("OCR closed");
+            return;
+        }
+
+        executor.execute(() -> {
+            try {
+                List<RecognizedLine> lines = joinRows(recognizeLargeImage(resolver, uri));
+                solveLines(lines, listener);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                Log.e(TAG, "Image import failed: " + e.getMessage());
+                listener.onOCRError("Image import failed");
+            }
+        });
+    }
+
+    private List<RecognizedLine> recognizeLargeImage(ContentResolver resolver, Uri uri)
+            throws IOException, ExecutionException, InterruptedException {
+        // Bounds only, no pixels are allocated
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = resolver.openInputStream(uri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        int sourceWidth = bounds.outWidth;
+        int sourceHeight = bounds.outHeight;
+        if (sourceWidth <= 0 || sourceHeight <= 0) {
+            throw new IOException("Unsupported image");
+        }
+
+        // Decoders ignore EXIF orientation: pixels and regions stay in the stored frame, while
+        // ML Kit is given the rotation and reports boxes in the upright frame
+        int rotation = readRotationDegrees(resolver, uri);
+        boolean sideways = rotation == 90 || rotation == 270;
+        int uprightWidth = sideways ? sourceHeight : sourceWidth;
+        int uprightHeight = sideways ? sourceWidth : sourceHeight;
+
+        // Low resolution preview to find where the text is
+        int previewSample = calculateInSampleSize(sourceWidth, sourceHeight, PREVIEW_MAX_PIXELS);
+        List<Rect> regions = new ArrayList<>();
+        List<RecognizedLine> previewLines = new ArrayList<>();
+        Bitmap preview = decodeSampled(resolver, uri, previewSample);
+        try {
+            Text previewText = Tasks.await(textRecognizer.process(InputImage.fromBitmap(preview, rotation)));
+            addLines(previewText, previewLines, 0, 0, previewSample);
+            for (Text.TextBlock block : previewText.getTextBlocks()) {
+                Rect box = block.getBoundingBox();
+                if (box != null) {
+                    Rect region = toUprightRegion(box, previewSample, uprightWidth, uprightHeight);
+                    regions.add(rotate(region, (360 - rotation) % 360, uprightWidth, uprightHeight));
+                }
+            }
+        } finally {
+            preview.recycle();
+        }
+        Log.d(TAG, "Import " + sourceWidth + "x" + sourceHeight + ", rotated " + rotation
+                + ", preview 1/" + previewSample + ", " + regions.size() + " text regions");
+
+        // Nothing to refine, or the preview was already the full image
+        if (regions.isEmpty() || previewSample == 1) {
+            return previewLines;
+        }
+
+        BitmapRegionDecoder decoder;
+        try (InputStream in = resolver.openInputStream(uri)) {
+            decoder = newRegionDecoder(in);
+        } catch (IOException e) {
+            // Format without region decoding support, the preview is the best we can do
+            Log.d(TAG, "Region decoding unavailable: " + e.getMessage());
+            return previewLines;
+        }
+        if (decoder == null) {
+            return previewLines;
+        }
+
+        List<RecognizedLine> lines = new ArrayList<>();
+        try {
+            // Streamed: only one tile is alive at a time
+            for (Rect region : mergeOverlapping(regions)) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+
+                BitmapFactory.Options options = new BitmapFactory.Options();
+                options.inSampleSize = calculateInSampleSize(region.width(), region.height(), TILE_MAX_PIXELS);
+                Bitmap tile = decoder.decodeRegion(region, options);
+                if (tile == null) {
+                    continue;
+                }
+                try {
+                    Text tileText = Tasks.await(textRecognizer.process(InputImage.fromBitmap(tile, rotation)));
+                    // The upright tile is the same region of the upright image
+                    Rect upright = rotate(region, rotation, sourceWidth, sourceHeight);
+                    addLines(tileText, lines, upright.left, upright.top, options.inSampleSize);
+                } finally {
+                    tile.recycle();
+                }
+            }
+        } finally {
+            decoder.recycle();
+        }
+        return lines;
+    }
+
+    private Bitmap decodeSampled(ContentResolver resolver, Uri uri, int sampleSize) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        try (InputStream in = resolver.openInputStream(uri)) {
+            Bitmap bitmap = BitmapFactory.decodeStream(in, null, options);
+            if (bitmap == null) {
+                throw new IOException("Unable to decode image");
+            }
+            return bitmap;
+        }
+    }
+
+    // Clockwise rotation that makes the image upright, 0 when there is no usable EXIF data
+    private int readRotationDegrees(ContentResolver resolver, Uri uri) {
+        try (InputStream in = resolver.openInputStream(uri)) {
+            return in == null ? 0 : new ExifInterface(in).getRotationDegrees();
+        } catch (IOException e) {
+            Log.d(TAG, "No EXIF orientation: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private BitmapRegionDecoder newRegionDecoder(InputStream in) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            return BitmapRegionDecoder.newInstance(in);
+        }
+        return newRegionDecoderLegacy(in);
+    }
+
+    // The shareable flag is ignored on every supported version, and deprecated from API 31
+    @SuppressWarnings("deprecation")
+    private BitmapRegionDecoder newRegionDecoderLegacy(InputStream in) throws IOException {
+        return BitmapRegionDecoder.newInstance(in, false);
+    }
+
+    private Rect toUprightRegion(Rect previewBox, int scale, int uprightWidth, int uprightHeight) {
+        // Pad by half a line so strokes cut by the coarse preview box are kept
+        int padding = Math.max(REGION_MIN_PADDING, previewBox.height() * scale / 2);
+        return new Rect(
+                Math.max(0, previewBox.left * scale - padding),
+                Math.max(0, previewBox.top * scale - padding),
+                Math.min(uprightWidth, previewBox.right * scale + padding),
+                Math.min(uprightHeight, previewBox.bottom * scale + padding));
+    }
+
+    // Rect in a width x height frame, after turning the frame clockwise by degrees
+    private Rect rotate(Rect rect, int degrees, int width, int height) {
+        switch (degrees) {
+            case 90:
+                return new Rect(height - rect.bottom, rect.left, height - rect.top, rect.right);
+            case 180:
+                return new Rect(width - rect.right, height - rect.bottom, width - rect.left, height - rect.top);
+            case 270:
+                return new Rect(rect.top, width - rect.right, rect.bottom, width - rect.left);
+            default:
+                return new Rect(rect.left, rect.top, rect.right, rect.bottom);
+        }
+    }
+
+    // Overlapping tiles would recognize the same text twice
+    private List<Rect> mergeOverlapping(List<Rect> regions) {
+        List<Rect> merged = new ArrayList<>(regions);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < merged.size() && !changed; i++) {
+                for (int j = i + 1; j < merged.size(); j++) {
+                    if (Rect.intersects(merged.get(i), merged.get(j))) {
+                        merged.get(i).union(merged.get(j));
+                        merged.remove(j);
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return merged;
+    }
+
+    // Smallest power of two that keeps the decoded image within maxPixels
+    private int calculateInSampleSize(int width, int height, int maxPixels) {
+        int sampleSize = 1;
+        while ((long) (width / sampleSize) * (height / sampleSize) > maxPixels) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new RejectedExecutionException("OCRHelper is closed");
+        }
+    }
+
+    private synchronized ExecutorService getImportExecutor() {
+        checkNotClosed();
+        if (importExecutor == null) {
+            importExecutor = Executors.newSingleThreadExecutor();
+        }
+        return importExecutor;
+    }
+
+    // One thread per contender, so a slow backend never delays the others
+    private synchronized ExecutorService getRaceExecutor() {
+        checkNotClosed();
+        if (raceExecutor == null) {
+            raceExecutor = Executors.newCachedThreadPool();
+        }
+        return raceExecutor;
+    }
+
+    private synchronized ScheduledExecutorService getRaceTimer() {
+        checkNotClosed();
+        if (raceTimer == null) {
+            raceTimer = Executors.newSingleThreadScheduledExecutor();
+        }
+        return raceTimer;
+    }
+
+    private synchronized ExecutorService getLineExecutor() {
+        checkNotClosed();
+        if (lineExecutor == null) {
+            lineExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+        return lineExecutor;
+    }
+
+    private Task<Text> process(Bitmap bitmap) {
+        if (bitmap.getConfig() == Bitmap.Config.ALPHA_8) {
+            // Ink plane from DrawingView is already grid-free and high contrast
+            return mlKitBackend.process(bitmap);
+        }
+        // Preprocess the image for better recognition
+        return textRecognizer.process(InputImage.fromBitmap(preprocessImage(bitmap), 0));
+    }
+
+    private InkImage toInkImage(Bitmap ink) {
+        ByteBuffer alpha = ByteBuffer.allocate(ink.getRowBytes() * ink.getHeight());
+        ink.copyPixelsToBuffer(alpha);
+        return new InkImage(alpha.array(), ink.getWidth(), ink.getHeight(), ink.getRowBytes());
+    }
+
     private Bitmap preprocessImage(Bitmap original) {
         // Create a new bitmap with the same dimensions
         Bitmap processed = Bitmap.createBitmap(original.getWidth(), original.getHeight(), Bitmap.Config.ARGB_8888);
@@ -134,12 +812,12 @@ public class OCRHelper {
 
         // If we have multiple lines, prefer the one with highest confidence
         if (!bestLine.isEmpty() && maxConfidence > 0.5) {
-            String cleanedBest = cleanMathematicalText(bestLine);
+            String cleanedBest = MathTextCleaner.cleanRecognizedText(bestLine);
             Log.d(TAG, "Best line selected: " + cleanedBest + " (confidence: " + maxConfidence + ")");
             return cleanedBest;
         }
 
-        String finalResult = cleanMathematicalText(result.toString());
+        String finalResult = MathTextCleaner.cleanRecognizedText(result.toString());
         Log.d(TAG, "Final cleaned result: " + finalResult);
         return finalResult;
     }
@@ -157,91 +835,28 @@ public class OCRHelper {
         return confidence;
     }
 
-    private String cleanMathematicalText(String text) {
-        if (text == null || text.isEmpty()) {
-            return "";
-        }
-
-        // Multiple cleaning passes for better accuracy
-        String cleaned = text;
-
-        // First pass: Common OCR errors
-        cleaned = cleaned
-                .replaceAll("\\s+", "")  // Remove all spaces
-                .replaceAll("[lL|!I]", "1")  // Common OCR error: l/L/|/!/I as 1
-                .replaceAll("[oO]", "0")   // Common OCR error: o/O as 0
-                .replaceAll("[sS]", "5")   // Common OCR error: s/S as 5
-                .replaceAll("[zZ]", "2")   // Common OCR error: z/Z as 2
-                .replaceAll("[aA]", "4")   // Common OCR error: a/A as 4
-                .replaceAll(":", "/")      // Common OCR error: : as /
-                .replaceAll("[{}]", "()")  // Replace curly braces with parentheses
-                .replaceAll("\\[", "(")    // Replace square brackets with parentheses
-                .replaceAll("\\]", ")")
-                .replaceAll("'", "")       // Remove apostrophes
-                .replaceAll("\"", "")      // Remove quotes
-                .replaceAll("`", "")       // Remove backticks
-                .replaceAll("i", "1")      // Lower i as 1
-                .replaceAll("B", "8")      // B as 8
-                .replaceAll("b", "6")      // b as 6
-                .replaceAll("g", "9")      // g as 9
-                .replaceAll("q", "9")      // q as 9
-                .replaceAll("t", "7")      // t as 7
-                .replaceAll("T", "7")      // T as 7
-                .replaceAll("Y", "7")      // Y as 7
-                .replaceAll("Z", "2")      // Z as 2
-                .replaceAll("S", "5");     // S as 5
-
-        // Second pass: Fix common operator confusions
-        cleaned = cleaned
-                .replaceAll("\\+\\+", "+")    // Fix double plus
-                .replaceAll("--", "-")        // Fix double minus
-                .replaceAll("\\*\\*", "*")    // Fix double multiply
-                .replaceAll("//", "/")        // Fix double divide
-                .replaceAll("=", "")          // Remove equals signs
-                .replaceAll(",", ".")         // Commas as decimals
-                .replaceAll(";", ".");        // Semicolons as decimals
-
-        // Third pass: Validate and fix structure
-        cleaned = fixCommonPatterns(cleaned);
-
-        return cleaned;
-    }
-
-    private String fixCommonPatterns(String text) {
-        if (text == null || text.length() < 2) {
-            return text;
-        }
-
-        StringBuilder result = new StringBuilder();
-        char[] chars = text.toCharArray();
-
-        for (int i = 0; i < chars.length; i++) {
-            char current = chars[i];
-
-            // Fix common patterns like "1-" becoming "1-"
-            if (i > 0 && isOperator(current) && isOperator(chars[i-1])) {
-                // Skip consecutive operators (keep the last one)
-                continue;
-            }
-
-            // Fix patterns like "23" becoming "23" (no change needed)
-            result.append(current);
-        }
-
-        return result.toString();
-    }
-
-    private boolean isOperator(char c) {
-        return c == '+' || c == '-' || c == '*' || c == '/';
-    }
-
-    private boolean isDigit(char c) {
-        return c >= '0' && c <= '9';
-    }
-
     public void close() {
         if (textRecognizer != null) {
             textRecognizer.close();
         }
+        synchronized (this) {
+            closed = true;
+            if (lineExecutor != null) {
+                lineExecutor.shutdownNow();
+                lineExecutor = null;
+            }
+            if (importExecutor != null) {
+                importExecutor.shutdownNow();
+                importExecutor = null;
+            }
+            if (raceExecutor != null) {
+                raceExecutor.shutdownNow();
+                raceExecutor = null;
+            }
+            if (raceTimer != null) {
+                raceTimer.shutdownNow();
+                raceTimer = null;
+            }
+        }
     }
 }
\ No newline at end of file
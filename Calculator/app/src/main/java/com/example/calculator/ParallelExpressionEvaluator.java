@@ -0,0 +1,379 @@
+package com.example.calculator;
+
+import com.example.calculator.EvaluationResult.ErrorCode;
+import com.example.calculator.MathRegistry.Operator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Evaluates very long single expressions, such as generated sums with hundreds of
+ * thousands of terms, on all cores. The expression is split at its top-level binary
+ * operators of lowest precedence (usually + and -, or * and / for a single huge term),
+ * runs of operands are evaluated as fork-join tasks, and long operands are split again
+ * the same way.
+ *
+ * <p>Operand values are then folded strictly left to right, so - and / keep their
+ * meaning and every floating point operation happens in the same order as in
+ * {@link MathExpressionParser#tryEvaluate(String)}. Values, error codes and error
+ * positions are identical to sequential evaluation.
+ */
+public class ParallelExpressionEvaluator {
+
+    // Below this many characters a fragment is evaluated sequentially
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 8192;
+    // More chunks than threads, so uneven operands still balance across workers
+    private static final int CHUNKS_PER_THREAD = 4;
+    // Operands nested deeper than this are evaluated sequentially, which bounds both the
+    // recursion and the rescanning of left-nested input such as ((((1+1)+1)+1)+1)
+    private static final int MAX_SPLIT_LEVELS = 16;
+
+    private final MathExpressionParser parser;
+    private final MathRegistry registry;
+    private final ForkJoinPool pool;
+    private final int sequentialThreshold;
+
+    public ParallelExpressionEvaluator() {
+        this(new MathExpressionParser());
+    }
+
+    public ParallelExpressionEvaluator(MathExpressionParser parser) {
+        this(parser, ForkJoinPool.commonPool(), DEFAULT_SEQUENTIAL_THRESHOLD);
+    }
+
+    public ParallelExpressionEvaluator(MathExpressionParser parser, ForkJoinPool pool,
+                                       int sequentialThreshold) {
+        if (sequentialThreshold < 1) {
+            throw new IllegalArgumentException("Threshold must be positive: " + sequentialThreshold);
+        }
+        this.parser = parser;
+        this.registry = parser.getRegistry();
+        this.pool = pool;
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    public double evaluateExpression(String expression) {
+        EvaluationResult result = tryEvaluate(expression);
+        if (!result.isSuccess()) {
+            String normalized = expression == null ? null : parser.normalize(expression);
+            throw new IllegalArgumentException("Invalid mathematical expression: " + normalized);
+        }
+        return result.getValue();
+    }
+
+    // Same contract as MathExpressionParser.tryEvaluate
+    public EvaluationResult tryEvaluate(String expression) {
+        if (expression == null || expression.length() <= sequentialThreshold) {
+            return parser.tryEvaluate(expression);
+        }
+
+        String normalized = parser.normalize(expression);
+        Split split = split(normalized, 0, normalized.length());
+
+        // Like the parser, report invalid characters and names before evaluation errors
+        EvaluationResult invalid = split == null
+                ? parser.validate(normalized)
+                : pool.invoke(new Validation(normalized, split));
+        if (invalid != null) {
+            return invalid;
+        }
+
+        return pool.invoke(new Fragment(normalized, matchParentheses(normalized), 0, normalized.length(),
+                split, 0));
+    }
+
+    // Index of the matching ')' for every '(' of a balanced expression, found in one pass
+    private static int[] matchParentheses(String expression) {
+        int[] matches = new int[expression.length()];
+        int[] open = new int[16];
+        int depth = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '(') {
+                if (depth == open.length) {
+                    int[] grown = new int[depth * 2];
+                    System.arraycopy(open, 0, grown, 0, depth);
+                    open = grown;
+                }
+                open[depth++] = i;
+            } else if (c == ')') {
+                matches[open[--depth]] = i;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Top-level binary operators of the lowest precedence in [start, end), or null when
+     * the range is unbalanced or has none that can be folded left to right.
+     */
+    private Split split(String expression, int start, int end) {
+        int precedence = Integer.MAX_VALUE;
+        boolean rightAssociative = false;
+        int[] operators = new int[16];
+        int count = 0;
+        int depth = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = expression.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                if (--depth < 0) {
+                    return null;
+                }
+            } else if (depth == 0 && i > start && endsOperand(expression.charAt(i - 1))) {
+                // After an operand, so binary; a sign after an operator belongs to the next operand
+                Operator operator = registry.getOperator(c);
+                if (operator == null || operator.getPrecedence() > precedence) {
+                    continue;
+                }
+                if (operator.getPrecedence() < precedence) {
+                    precedence = operator.getPrecedence();
+                    rightAssociative = false;
+                    count = 0;
+                }
+                rightAssociative |= operator.isRightAssociative();
+                if (count == operators.length) {
+                    int[] grown = new int[count * 2];
+                    System.arraycopy(operators, 0, grown, 0, count);
+                    operators = grown;
+                }
+                operators[count++] = i;
+            }
+        }
+
+        // A leading unary minus must bind tighter than the split operators, e.g. -2^2
+        if (depth != 0 || count == 0 || rightAssociative
+                || precedence > MathRegistry.UNARY_MINUS_PRECEDENCE) {
+            return null;
+        }
+        return new Split(start, end, operators, count);
+    }
+
+    private boolean endsOperand(char c) {
+        return (c >= '0' && c <= '9') || c == '.' || c == ')' || MathRegistry.isIdentifierPart(c);
+    }
+
+    // Operands separated by operator positions; operand i spans [operandStart(i), operandEnd(i))
+    private static final class Split {
+        final int start;
+        final int end;
+        final int[] operators;
+        final int operatorCount;
+
+        Split(int start, int end, int[] operators, int operatorCount) {
+            this.start = start;
+            this.end = end;
+            this.operators = operators;
+            this.operatorCount = operatorCount;
+        }
+
+        int operandCount() {
+            return operatorCount + 1;
+        }
+
+        int operandStart(int i) {
+            return i == 0 ? start : operators[i - 1] + 1;
+        }
+
+        int operandEnd(int i) {
+            return i == operatorCount ? end : operators[i];
+        }
+    }
+
+    // Consecutive operand runs of about equal length, as [first, last) index pairs
+    private List<int[]> chunks(Split split) {
+        int target = Math.max(sequentialThreshold,
+                (split.end - split.start) / (pool.getParallelism() * CHUNKS_PER_THREAD));
+        List<int[]> chunks = new ArrayList<>();
+        int first = 0;
+        for (int i = 0; i < split.operandCount(); i++) {
+            if (split.operandEnd(i) - split.operandStart(first) >= target || i == split.operandCount() - 1) {
+                chunks.add(new int[] {first, i + 1});
+                first = i + 1;
+            }
+        }
+        return chunks;
+    }
+
+    private static EvaluationResult shift(EvaluationResult result, int offset) {
+        return result.isSuccess() ? result : EvaluationResult.failure(result.getError(), result.getPosition() + offset);
+    }
+
+    // Validates a balanced expression chunk by chunk, null when valid
+    private final class Validation extends RecursiveTask<EvaluationResult> {
+        private final String expression;
+        private final Split split;
+
+        Validation(String expression, Split split) {
+            this.expression = expression;
+            this.split = split;
+        }
+
+        @Override
+        protected EvaluationResult compute() {
+            List<ValidationChunk> tasks = new ArrayList<>();
+            for (int[] chunk : chunks(split)) {
+                tasks.add(new ValidationChunk(expression,
+                        split.operandStart(chunk[0]), split.operandEnd(chunk[1] - 1)));
+            }
+            ForkJoinTask.invokeAll(tasks);
+
+            // First error in textual order
+            for (ValidationChunk task : tasks) {
+                if (task.invalid != null) {
+                    return task.invalid;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final class ValidationChunk extends RecursiveAction {
+        private final String expression;
+        private final int start;
+        private final int end;
+        EvaluationResult invalid;
+
+        ValidationChunk(String expression, int start, int end) {
+            this.expression = expression;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            // A trailing empty operand is reported during evaluation, as the parser does
+            if (start < end) {
+                EvaluationResult result = parser.validate(expression.substring(start, end));
+                invalid = result == null ? null : shift(result, start);
+            }
+        }
+    }
+
+    // Evaluates [start, end) of a validated expression, error positions are absolute
+    private final class Fragment extends RecursiveTask<EvaluationResult> {
+        private final String expression;
+        private final int[] matches;
+        private final int start;
+        private final int end;
+        // Precomputed for [start, end), or null
+        private final Split knownSplit;
+        private final int level;
+
+        Fragment(String expression, int[] matches, int start, int end, Split knownSplit, int level) {
+            this.expression = expression;
+            this.matches = matches;
+            this.start = start;
+            this.end = end;
+            this.knownSplit = knownSplit;
+            this.level = level;
+        }
+
+        @Override
+        protected EvaluationResult compute() {
+            // "(...)" evaluates to its content, errors inside are reported at the same positions
+            int from = start;
+            int to = end;
+            while (to - from > sequentialThreshold && expression.charAt(from) == '(' && matches[from] == to - 1) {
+                from++;
+                to--;
+            }
+            if (to - from <= sequentialThreshold || level >= MAX_SPLIT_LEVELS) {
+                return evaluateSequentially(expression, from, to);
+            }
+
+            Split split = from == start && knownSplit != null ? knownSplit : split(expression, from, to);
+            if (split == null) {
+                return evaluateSequentially(expression, from, to);
+            }
+
+            List<int[]> chunks = chunks(split);
+            List<OperandChunk> tasks = new ArrayList<>(chunks.size());
+            for (int[] chunk : chunks) {
+                tasks.add(new OperandChunk(expression, matches, split, chunk[0], chunk[1], level + 1));
+            }
+            ForkJoinTask.invokeAll(tasks);
+            return fold(split, tasks);
+        }
+
+        // Left to right, checking operators exactly as MathExpressionParser reduces them
+        private EvaluationResult fold(Split split, List<OperandChunk> tasks) {
+            double accumulator = 0;
+            for (OperandChunk task : tasks) {
+                for (int i = task.first; i < task.last; i++) {
+                    if (task.error != null && i == task.errorOperand) {
+                        return task.error;
+                    }
+                    double operand = task.values[i - task.first];
+                    if (i == 0) {
+                        accumulator = operand;
+                        continue;
+                    }
+
+                    Operator operator = registry.getOperator(expression.charAt(split.operators[i - 1]));
+                    double result = operator.apply(accumulator, operand);
+                    ErrorCode error = operator.checkResult(accumulator, operand, result);
+                    if (error != null) {
+                        // The parser reduces when it reaches the next operator, or the end
+                        return EvaluationResult.failure(error, split.operandEnd(i));
+                    }
+                    accumulator = result;
+                }
+            }
+            return EvaluationResult.success(accumulator);
+        }
+    }
+
+    // Evaluates operands [first, last) of a split, stopping at the first error
+    private final class OperandChunk extends RecursiveAction {
+        private final String expression;
+        private final int[] matches;
+        private final Split split;
+        final int first;
+        final int last;
+        private final int level;
+        final double[] values;
+        EvaluationResult error;
+        int errorOperand = -1;
+
+        OperandChunk(String expression, int[] matches, Split split, int first, int last, int level) {
+            this.expression = expression;
+            this.matches = matches;
+            this.split = split;
+            this.first = first;
+            this.last = last;
+            this.level = level;
+            this.values = new double[last - first];
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = first; i < last; i++) {
+                int start = split.operandStart(i);
+                int end = split.operandEnd(i);
+                EvaluationResult result = end - start > sequentialThreshold
+                        ? new Fragment(expression, matches, start, end, null, level).compute()
+                        : evaluateSequentially(expression, start, end);
+                if (!result.isSuccess()) {
+                    error = result;
+                    errorOperand = i;
+                    return;
+                }
+                values[i - first] = result.getValue();
+            }
+        }
+    }
+
+    private EvaluationResult evaluateSequentially(String expression, int start, int end) {
+        if (start == end) {
+            // Operator with nothing after it, e.g. the end of "5+"
+            return EvaluationResult.failure(ErrorCode.MISSING_OPERAND, start);
+        }
+        return shift(parser.eval(expression.substring(start, end)), start);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.calculator;
+
+/**
+ * Text returned by a {@link RecognizerBackend}, with the backend's confidence in it
+ * from 0 (a guess) to 1 (certain).
+ */
+public final class Recognition {
+    private final String text;
+    private final float confidence;
+
+    public Recognition(String text, float confidence) {
+        if (!(confidence >= 0 && confidence <= 1)) {
+            throw new IllegalArgumentException("Confidence must be in [0, 1]: " + confidence);
+        }
+        this.text = text == null ? "" : text;
+        this.confidence = confidence;
+    }
+
+    // One line per '\n', never null
+    public String getText() {
+        return text;
+    }
+
+    public float getConfidence() {
+        return confidence;
+    }
+
+    @Override
+    public String toString() {
+        return text.replace('\n', ' ') + " (" + confidence + ")";
+    }
+}
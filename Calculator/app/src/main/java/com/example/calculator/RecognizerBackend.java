@@ -0,0 +1,17 @@
+package com.example.calculator;
+
+/**
+ * Turns an ink plane into text. OCRHelper uses ML Kit through {@link MlKitBackend} by
+ * default; other engines, such as a local stroke classifier or a deterministic stand-in
+ * for the JVM benchmarks, plug in here and can be raced against each other.
+ */
+public interface RecognizerBackend {
+    // Shown in logs and backend statistics
+    String getName();
+
+    /**
+     * Called on a background thread. A backend that loses a race is interrupted, so
+     * long running work should check for interruption or use interruptible waits.
+     */
+    Recognition recognize(InkImage ink) throws Exception;
+}
@@ -0,0 +1,162 @@
+package com.example.calculator;
+
+import android.util.Log;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * One OCRHelper.raceTextFromInk call, decided by the first confident answer, the last
+ * contender to finish or the timeout. Once decided, the contenders still running are
+ * cancelled and the listener is called exactly once.
+ */
+final class RecognizerRace {
+    private static final String TAG = "RecognizerRace";
+
+    private final List<RecognizerBackend> contenders;
+    private final List<BackendStats> stats;
+    private final float threshold;
+    private final OCRHelper.OCRListener listener;
+    private final Future<?>[] futures;
+    private Future<?> timeout;
+    private final Recognition[] answers;
+    private int pending;
+    private boolean decided;
+    private int bestIndex = -1;
+
+    RecognizerRace(List<RecognizerBackend> contenders, List<BackendStats> stats, float threshold,
+                   OCRHelper.OCRListener listener) {
+        this.contenders = contenders;
+        this.stats = stats;
+        this.threshold = threshold;
+        this.listener = listener;
+        this.futures = new Future<?>[contenders.size()];
+        this.answers = new Recognition[contenders.size()];
+        this.pending = contenders.size();
+    }
+
+    // Body of the task submitted for one contender
+    void run(int index, InkImage ink) {
+        RecognizerBackend backend = contenders.get(index);
+        long start = System.nanoTime();
+        Recognition recognition;
+        try {
+            recognition = backend.recognize(ink);
+        } catch (InterruptedException e) {
+            // Lost the race, already counted as cancelled
+            return;
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            Log.e(TAG, backend.getName() + " failed: " + e.getMessage());
+            stats.get(index).recordFailure();
+            finish(index, null);
+            return;
+        }
+
+        long latency = System.nanoTime() - start;
+        stats.get(index).recordLatency(latency);
+        Log.d(TAG, backend.getName() + ": " + recognition + " in " + latency / 1_000_000 + " ms");
+        finish(index, recognition);
+    }
+
+    synchronized void track(int index, Future<?> future) {
+        futures[index] = future;
+        // Decided before this contender was even tracked; the winner may have answered
+        // that fast and is still inside its task, so it is left alone
+        if (decided && index != bestIndex && future.cancel(true)) {
+            stats.get(index).recordCancelled();
+        }
+    }
+
+    synchronized void trackTimeout(Future<?> future) {
+        timeout = future;
+        if (decided) {
+            future.cancel(false);
+        }
+    }
+
+    // Null when the contender failed
+    void finish(int index, Recognition recognition) {
+        Recognition delivered;
+        synchronized (this) {
+            pending--;
+            if (decided) {
+                return;
+            }
+            answers[index] = recognition;
+            if (recognition != null && !recognition.getText().trim().isEmpty()) {
+                if (recognition.getConfidence() >= threshold) {
+                    bestIndex = index;
+                    pending = 0;
+                } else if (bestIndex < 0
+                        || recognition.getConfidence() > answers[bestIndex].getConfidence()) {
+                    bestIndex = index;
+                }
+            }
+            if (pending > 0) {
+                return;
+            }
+            delivered = decide();
+        }
+        deliver(delivered, "Recognition failed: no backend recognized any text");
+    }
+
+    // Timer task, delivers the best answer so far if the race is still open
+    void expire() {
+        Recognition delivered;
+        synchronized (this) {
+            if (decided) {
+                return;
+            }
+            Log.d(TAG, "Race timed out with " + pending + " backends still running");
+            delivered = decide();
+        }
+        deliver(delivered, "Recognition timed out");
+    }
+
+    // The race could not be started completely, reports the error unless it is already decided
+    void abort(String error) {
+        synchronized (this) {
+            if (decided) {
+                return;
+            }
+            bestIndex = -1;
+            decide();
+        }
+        listener.onOCRError(error);
+    }
+
+    // Called with the lock held, null when there is no answer to deliver
+    private Recognition decide() {
+        decided = true;
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+        cancelOthers(bestIndex);
+        if (bestIndex < 0) {
+            return null;
+        }
+        // Counted for fallback and timeout answers too, so the win rate adds up
+        stats.get(bestIndex).recordWin();
+        return answers[bestIndex];
+    }
+
+    private void deliver(Recognition delivered, String error) {
+        if (delivered == null) {
+            listener.onOCRError(error);
+            return;
+        }
+        String resultText = MathTextCleaner.cleanRecognizedText(delivered.getText());
+        Log.d(TAG, "Answer from " + contenders.get(bestIndex).getName() + ": " + resultText);
+        listener.onOCRSuccess(resultText);
+    }
+
+    private void cancelOthers(int winner) {
+        for (int i = 0; i < futures.length; i++) {
+            if (i != winner && futures[i] != null && futures[i].cancel(true)) {
+                stats.get(i).recordCancelled();
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.calculator;
+
+/**
+ * Thins raw touch strokes before they are rendered and recognized. Each stroke is
+ * first resampled at a fixed arc length, which evens out the touch sampling density,
+ * then reduced with Ramer-Douglas-Peucker, which drops points that lie within
+ * {@code tolerance} pixels of the simplified line.
+ *
+ * <p>Strokes are flat {@code [x0, y0, x1, y1, ...]} arrays.
+ */
+public class StrokeSimplifier {
+
+    public static final float DEFAULT_TOLERANCE = 1.5f;
+    public static final float DEFAULT_SPACING = 4f;
+
+    private float tolerance;
+    private float spacing;
+
+    public StrokeSimplifier() {
+        this(DEFAULT_TOLERANCE, DEFAULT_SPACING);
+    }
+
+    public StrokeSimplifier(float tolerance, float spacing) {
+        setTolerance(tolerance);
+        setSpacing(spacing);
+    }
+
+    public float getTolerance() {
+        return tolerance;
+    }
+
+    // 0 keeps every resampled point
+    public void setTolerance(float tolerance) {
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("Tolerance must not be negative: " + tolerance);
+        }
+        this.tolerance = tolerance;
+    }
+
+    public float getSpacing() {
+        return spacing;
+    }
+
+    public void setSpacing(float spacing) {
+        if (!(spacing > 0)) {
+            throw new IllegalArgumentException("Spacing must be positive: " + spacing);
+        }
+        this.spacing = spacing;
+    }
+
+    // Uses the first pointCount points of the stroke
+    public float[] process(float[] stroke, int pointCount) {
+        return simplify(resample(stroke, pointCount, spacing), tolerance);
+    }
+
+    /**
+     * Points every {@code spacing} pixels along the stroke, keeping both end points.
+     */
+    public static float[] resample(float[] stroke, int pointCount, float spacing) {
+        if (pointCount <= 1) {
+            return copy(stroke, pointCount);
+        }
+
+        float length = 0;
+        for (int i = 1; i < pointCount; i++) {
+            length += distance(stroke, i - 1, i);
+        }
+        if (length == 0) {
+            return copy(stroke, 1);
+        }
+
+        int segments = Math.max(1, Math.round(length / spacing));
+        float step = length / segments;
+        float[] out = new float[(segments + 1) * 2];
+        out[0] = stroke[0];
+        out[1] = stroke[1];
+        int written = 1;
+
+        // Walk the polyline, emitting a point each time another step has been covered
+        float covered = 0;
+        float target = step;
+        for (int i = 1; i < pointCount && written < segments; i++) {
+            float segment = distance(stroke, i - 1, i);
+            while (segment > 0 && covered + segment >= target && written < segments) {
+                float t = (target - covered) / segment;
+                out[written * 2] = stroke[(i - 1) * 2] + t * (stroke[i * 2] - stroke[(i - 1) * 2]);
+                out[written * 2 + 1] = stroke[(i - 1) * 2 + 1] + t * (stroke[i * 2 + 1] - stroke[(i - 1) * 2 + 1]);
+                written++;
+                target += step;
+            }
+            covered += segment;
+        }
+
+        // Float rounding can leave the last steps unwritten, pin them to the end point
+        for (int i = written; i <= segments; i++) {
+            out[i * 2] = stroke[(pointCount - 1) * 2];
+            out[i * 2 + 1] = stroke[(pointCount - 1) * 2 + 1];
+        }
+        return out;
+    }
+
+    /**
+     * Ramer-Douglas-Peucker with an explicit stack, so long strokes cannot overflow
+     * the call stack.
+     */
+    public static float[] simplify(float[] stroke, float tolerance) {
+        int pointCount = stroke.length / 2;
+        if (pointCount <= 2 || tolerance <= 0) {
+            return stroke;
+        }
+
+        boolean[] keep = new boolean[pointCount];
+        keep[0] = true;
+        keep[pointCount - 1] = true;
+
+        int[] stack = new int[pointCount * 2];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = pointCount - 1;
+        float toleranceSquared = tolerance * tolerance;
+
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+
+            float maxDistance = 0;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                float d = segmentDistanceSquared(stroke, i, first, last);
+                if (d > maxDistance) {
+                    maxDistance = d;
+                    farthest = i;
+                }
+            }
+
+            if (farthest >= 0 && maxDistance > toleranceSquared) {
+                keep[farthest] = true;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+
+        int kept = 0;
+        for (boolean k : keep) {
+            if (k) kept++;
+        }
+        float[] out = new float[kept * 2];
+        int j = 0;
+        for (int i = 0; i < pointCount; i++) {
+            if (keep[i]) {
+                out[j++] = stroke[i * 2];
+                out[j++] = stroke[i * 2 + 1];
+            }
+        }
+        return out;
+    }
+
+    private static float[] copy(float[] stroke, int pointCount) {
+        float[] out = new float[pointCount * 2];
+        System.arraycopy(stroke, 0, out, 0, pointCount * 2);
+        return out;
+    }
+
+    private static float distance(float[] stroke, int a, int b) {
+        float dx = stroke[b * 2] - stroke[a * 2];
+        float dy = stroke[b * 2 + 1] - stroke[a * 2 + 1];
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // Squared distance from point p to the segment a-b
+    private static float segmentDistanceSquared(float[] stroke, int p, int a, int b) {
+        float ax = stroke[a * 2];
+        float ay = stroke[a * 2 + 1];
+        float dx = stroke[b * 2] - ax;
+        float dy = stroke[b * 2 + 1] - ay;
+        float px = stroke[p * 2] - ax;
+        float py = stroke[p * 2 + 1] - ay;
+
+        float lengthSquared = dx * dx + dy * dy;
+        float t = lengthSquared == 0 ? 0 : (px * dx + py * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        float ex = px - t * dx;
+        float ey = py - t * dy;
+        return ex * ex + ey * ey;
+    }
+}
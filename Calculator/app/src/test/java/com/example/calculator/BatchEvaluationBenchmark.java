@@ -0,0 +1,67 @@
+package com.example.calculator;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Throughput of BatchExpressionEvaluator against calling MathExpressionParser.tryEvaluate
+ * for every item, on a batch of invoice-style lines where most items repeat an earlier one
+ * and all of them share subtotals. The batch must beat the loop, both are timed in the
+ * same run so the comparison holds on any machine.
+ */
+public class BatchEvaluationBenchmark {
+    private static final int ITEMS = 100_000;
+    private static final int DISTINCT = 500;
+    private static final int ROUNDS = 5;
+
+    private final MathExpressionParser parser = new MathExpressionParser();
+    private final BatchExpressionEvaluator evaluator = new BatchExpressionEvaluator(parser);
+
+    @Test
+    public void redundantBatch_fasterThanLoopingTryEvaluate() {
+        Random random = new Random(11);
+        List<String> distinct = new ArrayList<>();
+        for (int i = 0; i < DISTINCT; i++) {
+            // Quantity times unit price, plus the shared shipping and tax terms
+            distinct.add((random.nextInt(20) + 1) + "*" + (random.nextInt(5000) / 100.0)
+                    + "+(4.99+2.5)*1.2-" + random.nextInt(10));
+        }
+        List<String> items = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            // New String instances, as if read from a file or a form
+            items.add(new String(distinct.get(random.nextInt(DISTINCT)).toCharArray()));
+        }
+
+        BatchExpressionEvaluator.BatchResult result = evaluator.evaluateAll(items);
+        for (int i = 0; i < ITEMS; i += 97) {
+            assertEquals(parser.tryEvaluate(items.get(i)).getValue(), result.getValue(i), 0);
+        }
+
+        long loop = time(() -> {
+            for (String item : items) {
+                parser.tryEvaluate(item);
+            }
+        });
+        long batch = time(() -> evaluator.evaluateAll(items));
+        System.out.printf("%d items, %d distinct: tryEvaluate loop %.1f ms, batch %.1f ms (%.1fx), %d reused nodes%n",
+                ITEMS, DISTINCT, loop / 1e6, batch / 1e6, (double) loop / batch, result.getReusedNodes());
+        assertTrue(String.format("Batch %.1f ms is not faster than the loop %.1f ms", batch / 1e6, loop / 1e6),
+                batch < loop);
+    }
+
+    private long time(Runnable run) {
+        run.run(); // Warm-up
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.calculator;
+
+import com.example.calculator.EvaluationResult.ErrorCode;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchExpressionEvaluatorTest {
+    private final MathExpressionParser parser = new MathExpressionParser();
+    private final BatchExpressionEvaluator evaluator = new BatchExpressionEvaluator(parser);
+
+    @Test
+    public void values_matchParser() {
+        List<String> expressions = Arrays.asList(
+                "12+34", "7*8-6", "(9-3)/2", "-2^2", "2^3^2", "2^-3*4", "sqrt(16)+abs(-3)",
+                "2*pi-e", "10÷4", "3x4", "exp(1)", "-(-(2))");
+        BatchExpressionEvaluator.BatchResult result = evaluator.evaluateAll(expressions);
+
+        assertEquals(expressions.size(), result.size());
+        for (int i = 0; i < expressions.size(); i++) {
+            assertTrue(expressions.get(i), result.isValid(i));
+            assertEquals(expressions.get(i), parser.evaluateExpression(expressions.get(i)), result.getValue(i), 0);
+        }
+    }
+
+    @Test
+    public void errors_matchParserCodesAndPositions() {
+        List<String> expressions = Arrays.asList(
+                "5+", "(3*", "2(3)", "1/0", "1.2.3", "()", "sqrt(-1)", "foo+1", "1$2", "", "1+2)", "7");
+        BatchExpressionEvaluator.BatchResult result = evaluator.evaluateAll(expressions);
+
+        for (int i = 0; i < expressions.size(); i++) {
+            EvaluationResult expected = parser.tryEvaluate(expressions.get(i));
+            EvaluationResult actual = result.getResult(i);
+            assertEquals(expressions.get(i), expected.getError(), actual.getError());
+            assertEquals(expressions.get(i), expected.getPosition(), actual.getPosition());
+        }
+        assertEquals(ErrorCode.DIVISION_BY_ZERO, result.getError(3));
+        assertTrue(Double.isNaN(result.getValue(3)));
+        assertTrue(result.isValid(11));
+    }
+
+    @Test
+    public void nullExpression_isEmptyError() {
+        BatchExpressionEvaluator.BatchResult result = evaluator.evaluateAll(Collections.singletonList(null));
+        assertEquals(ErrorCode.EMPTY, result.getError(0));
+    }
+
+    @Test
+    public void sharedSubexpressions_areEvaluatedOnce() {
+        // The second 1+2 is not parsed again; in (1+2)*3, 1, 2 and 1+2 are kept from the
+        // first item and only 3 and the product are new
+        BatchExpressionEvaluator.BatchResult result = evaluator.evaluateAll(
+                Arrays.asList("1+2", "1+2", "(1+2)*3"));
+
+        assertEquals(1, result.getRepeatedExpressions());
+        assertEquals(8, result.getNodesRequested());
+        assertEquals(5, result.getDistinctNodes());
+        assertEquals(3, result.getReusedNodes());
+        assertEquals(2, result.getOperationsEvaluated());
+        assertEquals(3.0 / 8, result.getReuseRatio(), 1e-12);
+        assertEquals(3, result.getValue(1), 0);
+        assertEquals(9, result.getValue(2), 0);
+    }
+
+    @Test
+    public void repeatedExpressions_matchAfterNormalizing() {
+        BatchExpressionEvaluator.BatchResult result = evaluator.evaluateAll(
+                Arrays.asList("3x4", "3 * 4", "3*4", "5+", "5 +", "3x4"));
+
+        // Only "3x4" and "5+" are parsed: 3, 4 and 3*4, then 5 before the missing operand
+        assertEquals(4, result.getRepeatedExpressions());
+        assertEquals(4, result.getNodesRequested());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(12, result.getValue(i), 0);
+        }
+        assertEquals(parser.tryEvaluate("5 +").getPosition(), result.getResult(4).getPosition());
+        assertEquals(ErrorCode.MISSING_OPERAND, result.getError(4));
+        assertEquals(12, result.getValue(5), 0);
+    }
+
+    @Test
+    public void deepNesting_doesNotOverflow() {
+        StringBuilder parentheses = new StringBuilder();
+        StringBuilder powers = new StringBuilder("1");
+        StringBuilder signs = new StringBuilder();
+        for (int i = 0; i < 2_000; i++) {
+            parentheses.append('(');
+        }
+        parentheses.append('7');
+        for (int i = 0; i < 2_000; i++) {
+            parentheses.append(')');
+        }
+        for (int i = 0; i < 20_000; i++) {
+            powers.append("^1");
+            signs.append('-');
+        }
+        signs.append('5');
+
+        List<String> expressions = Arrays.asList(parentheses.toString(), powers.toString(), signs.toString());
+        BatchExpressionEvaluator.BatchResult result = evaluator.evaluateAll(expressions);
+        for (int i = 0; i < expressions.size(); i++) {
+            assertTrue(result.isValid(i));
+            assertEquals(parser.evaluateExpression(expressions.get(i)), result.getValue(i), 0);
+        }
+    }
+}
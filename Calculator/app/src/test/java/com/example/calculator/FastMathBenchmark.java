@@ -0,0 +1,95 @@
+package com.example.calculator;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * MathRegistry.fastMath() against the standard registry: 20k function-heavy expressions
+ * through the parser, then a million raw sin + cos + exp + log calls, to see whether the
+ * approximate kernels pay off on the runtime at hand.
+ */
+public class FastMathBenchmark {
+    private static final int SAMPLES = 1_000_000;
+    private static final int EXPRESSIONS = 20_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void bulkEvaluation_fastMathVsJavaLangMath() {
+        List<String> expressions = generateExpressions();
+        MathExpressionParser standard = new MathExpressionParser();
+        MathExpressionParser fast = new MathExpressionParser(MathRegistry.fastMath());
+
+        // Warm up both paths before timing
+        evaluateAll(standard, expressions);
+        evaluateAll(fast, expressions);
+
+        long standardNanos = Long.MAX_VALUE;
+        long fastNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            evaluateAll(standard, expressions);
+            standardNanos = Math.min(standardNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            evaluateAll(fast, expressions);
+            fastNanos = Math.min(fastNanos, System.nanoTime() - start);
+        }
+
+        System.out.printf("bulk evaluation of %d expressions: java.lang.Math %.2f ms, FastMath %.2f ms%n",
+                expressions.size(), standardNanos / 1e6, fastNanos / 1e6);
+        System.out.printf("kernels over %d args: java.lang.Math %.2f ms, FastMath %.2f ms%n",
+                SAMPLES, timeKernels(false) / 1e6, timeKernels(true) / 1e6);
+    }
+
+    private List<String> generateExpressions() {
+        Random random = new Random(7);
+        List<String> expressions = new ArrayList<>();
+        for (int i = 0; i < EXPRESSIONS; i++) {
+            double a = random.nextDouble() * 10;
+            double b = random.nextDouble() * 10 + 0.1;
+            double c = random.nextDouble() * 5;
+            expressions.add(String.format(java.util.Locale.US,
+                    "sin(%.4f)*cos(%.4f)+exp(%.4f)-ln(%.4f)+sqrt(%.4f)^2", a, b, c, b, a));
+        }
+        return expressions;
+    }
+
+    private double evaluateAll(MathExpressionParser parser, List<String> expressions) {
+        double sum = 0;
+        for (String expression : expressions) {
+            sum += parser.tryEvaluate(expression).getValue();
+        }
+        return sum;
+    }
+
+    // Best of ROUNDS over sin + cos + exp + log on the same arguments
+    private long timeKernels(boolean fast) {
+        double[] args = new double[SAMPLES];
+        Random random = new Random(3);
+        for (int i = 0; i < args.length; i++) {
+            args[i] = random.nextDouble() * 20 + 1e-3;
+        }
+
+        long best = Long.MAX_VALUE;
+        double sink = 0;
+        for (int round = 0; round < ROUNDS + 1; round++) {
+            long start = System.nanoTime();
+            for (double x : args) {
+                sink += fast
+                        ? FastMath.sin(x) + FastMath.cos(x) + FastMath.exp(x) + FastMath.log(x)
+                        : Math.sin(x) + Math.cos(x) + Math.exp(x) + Math.log(x);
+            }
+            // First round is warm-up
+            if (round > 0) {
+                best = Math.min(best, System.nanoTime() - start);
+            }
+        }
+        assertFalse(Double.isNaN(sink));
+        return best;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.calculator;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the documented FastMath error bounds, and that MathRegistry.fastMath() gives the
+ * same results as the standard registry within them. Timings are in FastMathBenchmark.
+ */
+public class FastMathTest {
+    private static final int SAMPLES = 1_000_000;
+    private static final int EXPRESSIONS = 20_000;
+
+    @Test
+    public void sinCos_withinAbsoluteBound() {
+        Random random = new Random(42);
+        double maxError = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            double x = (random.nextDouble() * 2 - 1) * 1e6;
+            maxError = Math.max(maxError, Math.abs(FastMath.sin(x) - Math.sin(x)));
+            maxError = Math.max(maxError, Math.abs(FastMath.cos(x) - Math.cos(x)));
+        }
+        assertTrue(maxError < 3e-7);
+    }
+
+    @Test
+    public void exp_withinRelativeBound() {
+        Random random = new Random(42);
+        double maxError = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            double x = (random.nextDouble() * 2 - 1) * 708;
+            maxError = Math.max(maxError, Math.abs(FastMath.exp(x) / Math.exp(x) - 1));
+        }
+        assertTrue(maxError < 1e-14);
+    }
+
+    @Test
+    public void log_withinRelativeBound() {
+        Random random = new Random(42);
+        double maxError = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            // Wide range plus values close to 1, where the result is tiny
+            double x = i % 2 == 0
+                    ? Math.exp((random.nextDouble() * 2 - 1) * 700)
+                    : 1 + (random.nextDouble() - 0.5) * 1e-3;
+            double expected = Math.log(x);
+            if (expected != 0) {
+                maxError = Math.max(maxError, Math.abs((FastMath.log(x) - expected) / expected));
+            }
+        }
+        assertTrue(maxError < 1e-14);
+    }
+
+    @Test
+    public void specialValues_matchJavaLangMath() {
+        assertTrue(Double.isNaN(FastMath.sin(Double.NaN)));
+        assertTrue(Double.isNaN(FastMath.cos(Double.POSITIVE_INFINITY)));
+        assertEquals(Double.POSITIVE_INFINITY, FastMath.exp(1000), 0);
+        assertEquals(0.0, FastMath.exp(-1000), 0);
+        assertEquals(Double.NEGATIVE_INFINITY, FastMath.log(0), 0);
+        assertTrue(Double.isNaN(FastMath.log(-1)));
+        assertEquals(Math.log(Double.MIN_VALUE), FastMath.log(Double.MIN_VALUE), 1e-12);
+    }
+
+    @Test
+    public void fastRegistry_agreesWithStandard() {
+        MathExpressionParser standard = new MathExpressionParser();
+        MathExpressionParser fast = new MathExpressionParser(MathRegistry.fastMath());
+        Random random = new Random(7);
+        for (int i = 0; i < EXPRESSIONS; i++) {
+            double a = random.nextDouble() * 10;
+            double b = random.nextDouble() * 10 + 0.1;
+            double c = random.nextDouble() * 5;
+            String expression = String.format(Locale.US,
+                    "sin(%.4f)*cos(%.4f)+exp(%.4f)-ln(%.4f)+log(%.4f)", a, b, c, b, a + 1);
+
+            EvaluationResult expected = standard.tryEvaluate(expression);
+            EvaluationResult actual = fast.tryEvaluate(expression);
+            assertEquals(expression, expected.isSuccess(), actual.isSuccess());
+            assertEquals(expression, expected.getValue(), actual.getValue(),
+                    1e-5 * Math.max(1, Math.abs(expected.getValue())));
+        }
+    }
+}
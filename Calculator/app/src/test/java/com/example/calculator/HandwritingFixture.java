@@ -0,0 +1,188 @@
+package com.example.calculator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Scripted handwriting shared by the stroke and solve path tests and benchmarks:
+ * worksheets are written with SyntheticStrokes, replayed the way DrawingView commits
+ * strokes, and recognized through OCRHelper, optionally timed stage by stage.
+ */
+final class HandwritingFixture {
+    // Each entry is one canvas, '\n' starts a new written line
+    static final String[] WORKSHEETS = {
+            "12+34", "7*8-6", "(9-3)/2", "3.5*4+10", "45/9*(2+1)", "12+34\n7*8-6\n(9-3)/2"};
+    static final int CANVAS_WIDTH = 1080;
+    static final int CANVAS_HEIGHT = 600;
+    static final float STROKE_WIDTH = 18f;
+    private static final float TEXT_SIZE = 110f;
+    private static final float LINE_HEIGHT = 180f;
+    // Typical touch sampling for a finger moving at moderate speed
+    private static final float SAMPLE_SPACING = 1.5f;
+    private static final float JITTER = 0.4f;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    static final String[] STAGES = {"stroke replay", "recognition", "line solve", "end to end"};
+    static final int REPLAY = 0;
+    static final int RECOGNITION = 1;
+    static final int LINE_SOLVE = 2;
+    static final int TOTAL = 3;
+
+    private HandwritingFixture() {
+    }
+
+    static List<float[]> write(String worksheet, long seed) {
+        List<float[]> strokes = new ArrayList<>();
+        String[] lines = worksheet.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            strokes.addAll(SyntheticStrokes.write(lines[i], 20, 40 + i * LINE_HEIGHT, TEXT_SIZE,
+                    SAMPLE_SPACING, JITTER, seed * 31 + i));
+        }
+        return strokes;
+    }
+
+    // StrokeSimplifier.process for every stroke, as DrawingView.commitStroke does
+    static List<float[]> processAll(StrokeSimplifier simplifier, List<float[]> strokes) {
+        List<float[]> processed = new ArrayList<>(strokes.size());
+        for (float[] stroke : strokes) {
+            processed.add(simplifier.process(stroke, stroke.length / 2));
+        }
+        return processed;
+    }
+
+    // Pixels that differ between two canvases of the same size
+    static int inkDifference(InkRasterizer a, InkRasterizer b) {
+        int diff = 0;
+        for (int i = 0; i < a.plane.length; i++) {
+            if (a.plane[i] != b.plane[i]) diff++;
+        }
+        return diff;
+    }
+
+    // DrawingView.commitStroke for every stroke, in touch order
+    static void replay(InkRasterizer canvas, StrokeSimplifier simplifier, List<float[]> touches) {
+        canvas.drawStrokes(processAll(simplifier, touches), STROKE_WIDTH);
+    }
+
+    static InkImage toInkImage(InkRasterizer canvas) {
+        return new InkImage(canvas.plane, canvas.width, canvas.height, canvas.width);
+    }
+
+    static List<OCRHelper.LineResult> recognize(OCRHelper ocrHelper, InkImage ink) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<List<OCRHelper.LineResult>> lines = new AtomicReference<>();
+        AtomicReference<String> error = new AtomicReference<>();
+        ocrHelper.recognizeLinesFromInk(ink, new OCRHelper.MultiLineListener() {
+            @Override
+            public void onLinesRecognized(List<OCRHelper.LineResult> results) {
+                lines.set(results);
+                done.countDown();
+            }
+
+            @Override
+            public void onOCRError(String message) {
+                error.set(message);
+                done.countDown();
+            }
+        });
+        assertTrue("Recognition timed out", done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertNull(error.get(), error.get());
+        return lines.get();
+    }
+
+    // Lines come back already solved, MainActivity shows them as they are
+    static void assertSolved(String worksheet, List<OCRHelper.LineResult> lines, MathExpressionParser parser) {
+        String[] expected = worksheet.split("\n");
+        assertEquals(expected.length, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals(expected[i], lines.get(i).getExpression());
+            assertTrue(lines.get(i).isSolved());
+            assertEquals(parser.evaluateExpression(expected[i]), lines.get(i).getValue(), 0);
+        }
+    }
+
+    /**
+     * Draws, recognizes and solves every worksheet warmup + iterations times, with the
+     * TemplateRecognizer standing in for ML Kit. Returns the nanoseconds of the measured
+     * runs, one row per stage in STAGES order.
+     */
+    static long[][] timeSolvePath(int warmup, int iterations) throws InterruptedException {
+        TimedBackend backend = new TimedBackend(new TemplateRecognizer(STROKE_WIDTH));
+        MathExpressionParser parser = new MathExpressionParser();
+        List<List<float[]>> touches = new ArrayList<>();
+        for (int w = 0; w < WORKSHEETS.length; w++) {
+            touches.add(write(WORKSHEETS[w], w));
+        }
+
+        InkRasterizer canvas = new InkRasterizer(CANVAS_WIDTH, CANVAS_HEIGHT);
+        StrokeSimplifier simplifier = new StrokeSimplifier();
+        long[][] samples = new long[STAGES.length][iterations * WORKSHEETS.length];
+        int sample = 0;
+        OCRHelper ocrHelper = new OCRHelper(backend);
+        try {
+            for (int iteration = 0; iteration < warmup + iterations; iteration++) {
+                for (int w = 0; w < WORKSHEETS.length; w++) {
+                    long start = System.nanoTime();
+                    canvas.clear();
+                    replay(canvas, simplifier, touches.get(w));
+                    InkImage ink = toInkImage(canvas);
+                    long drawn = System.nanoTime();
+
+                    List<OCRHelper.LineResult> lines = recognize(ocrHelper, ink);
+                    long recognized = System.nanoTime();
+                    assertSolved(WORKSHEETS[w], lines, parser);
+
+                    if (iteration >= warmup) {
+                        long recognitionNanos = backend.lastNanos.get();
+                        samples[REPLAY][sample] = drawn - start;
+                        samples[RECOGNITION][sample] = recognitionNanos;
+                        samples[LINE_SOLVE][sample] = recognized - drawn - recognitionNanos;
+                        samples[TOTAL][sample] = recognized - start;
+                        sample++;
+                    }
+                }
+            }
+        } finally {
+            ocrHelper.close();
+        }
+        return samples;
+    }
+
+    // Nearest rank, in milliseconds
+    static double percentile(long[] samples, int p) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    // Records how long the wrapped backend took for the last call
+    private static final class TimedBackend implements RecognizerBackend {
+        private final RecognizerBackend delegate;
+        final AtomicLong lastNanos = new AtomicLong();
+
+        TimedBackend(RecognizerBackend delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public Recognition recognize(InkImage ink) throws Exception {
+            long start = System.nanoTime();
+            Recognition recognition = delegate.recognize(ink);
+            lastNanos.set(System.nanoTime() - start);
+            return recognition;
+        }
+    }
+}
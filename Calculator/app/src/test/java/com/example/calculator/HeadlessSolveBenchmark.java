@@ -0,0 +1,32 @@
+package com.example.calculator;
+
+import org.junit.Test;
+
+import static com.example.calculator.HandwritingFixture.*;
+
+/**
+ * Draw-to-result latency of the solve path without a device: scripted strokes are
+ * simplified and rasterized like DrawingView does, recognized through OCRHelper with
+ * the TemplateRecognizer backend in place of ML Kit, and solved line by line, which is
+ * what MainActivity shows. Prints p50/p95/p99 for each stage over many runs; the
+ * regression budget on the same measurement runs with every build in HeadlessSolveTest.
+ *
+ * <p>Run with {@code ./gradlew :app:testDebugUnitTest -Pbenchmark --tests "*HeadlessSolveBenchmark"}.
+ */
+public class HeadlessSolveBenchmark {
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    @Test
+    public void solvePath_latencyPercentiles() throws Exception {
+        long[][] samples = timeSolvePath(WARMUP, ITERATIONS);
+
+        System.out.printf("solve path over %d runs (%d canvases x %d iterations), ms%n",
+                samples[TOTAL].length, WORKSHEETS.length, ITERATIONS);
+        System.out.printf("%-14s %8s %8s %8s%n", "stage", "p50", "p95", "p99");
+        for (int stage = 0; stage < STAGES.length; stage++) {
+            System.out.printf("%-14s %8.3f %8.3f %8.3f%n", STAGES[stage], percentile(samples[stage], 50),
+                    percentile(samples[stage], 95), percentile(samples[stage], 99));
+        }
+    }
+}
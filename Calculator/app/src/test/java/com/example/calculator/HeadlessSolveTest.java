@@ -0,0 +1,104 @@
+package com.example.calculator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.example.calculator.HandwritingFixture.*;
+import static org.junit.Assert.*;
+
+/**
+ * The draw-to-result solve path without a device, with the TemplateRecognizer backend in
+ * place of ML Kit. Detailed timings are in HeadlessSolveBenchmark.
+ */
+public class HeadlessSolveTest {
+    private static final int BUDGET_WARMUP = 10;
+    private static final int BUDGET_ITERATIONS = 30;
+    // Everything around recognition (replay, hand-offs, line solving) may cost at most this
+    // many times recognition itself; about twice what a single slow core measures
+    private static final double END_TO_END_TO_RECOGNITION_P95 = 8;
+
+    private final TemplateRecognizer recognizer = new TemplateRecognizer(STROKE_WIDTH);
+    private final MathExpressionParser parser = new MathExpressionParser();
+    private OCRHelper ocrHelper;
+
+    @Before
+    public void setUp() {
+        ocrHelper = new OCRHelper(recognizer);
+    }
+
+    @After
+    public void tearDown() {
+        ocrHelper.close();
+    }
+
+    @Test
+    public void templateRecognizer_readsSyntheticHandwriting() {
+        InkRasterizer canvas = new InkRasterizer(CANVAS_WIDTH, CANVAS_HEIGHT);
+        for (int w = 0; w < WORKSHEETS.length; w++) {
+            canvas.clear();
+            replay(canvas, new StrokeSimplifier(), write(WORKSHEETS[w], w));
+            assertEquals(WORKSHEETS[w], recognizer.recognize(toInkImage(canvas)).getText());
+        }
+    }
+
+    @Test
+    public void solvePath_solvesEveryWorksheet() throws Exception {
+        InkRasterizer canvas = new InkRasterizer(CANVAS_WIDTH, CANVAS_HEIGHT);
+        StrokeSimplifier simplifier = new StrokeSimplifier();
+        for (int w = 0; w < WORKSHEETS.length; w++) {
+            canvas.clear();
+            replay(canvas, simplifier, write(WORKSHEETS[w], w));
+            assertSolved(WORKSHEETS[w], recognize(ocrHelper, toInkImage(canvas)), parser);
+        }
+    }
+
+    @Test
+    public void solvePath_staysWithinRecognitionBudget() throws Exception {
+        // Relative to recognition timed in the same runs, so a slow or busy machine slows both
+        long[][] samples = timeSolvePath(BUDGET_WARMUP, BUDGET_ITERATIONS);
+        double endToEnd = percentile(samples[TOTAL], 95);
+        double recognition = percentile(samples[RECOGNITION], 95);
+        assertTrue(String.format("End to end p95 %.3f ms is over %.0fx the recognition p95 %.3f ms",
+                        endToEnd, END_TO_END_TO_RECOGNITION_P95, recognition),
+                endToEnd <= END_TO_END_TO_RECOGNITION_P95 * recognition);
+    }
+
+    @Test
+    public void recognitionNoise_isCleanedBeforeSolving() throws Exception {
+        OCRHelper noisy = new OCRHelper(new FixedBackend("12+3=?\n(2+3)#\n5 + 3 = _\nsqrt(16)"));
+        try {
+            List<OCRHelper.LineResult> lines = recognize(noisy, new InkImage(new byte[1], 1, 1, 1));
+            assertEquals(4, lines.size());
+            double[] expected = {15, 5, 8, 4};
+            for (int i = 0; i < expected.length; i++) {
+                assertTrue(lines.get(i).getRawText(), lines.get(i).isSolved());
+                assertEquals(expected[i], lines.get(i).getValue(), 0);
+            }
+            assertEquals("12+3", lines.get(0).getExpression());
+        } finally {
+            noisy.close();
+        }
+    }
+
+    // Answers every canvas with the same text, as ML Kit would with stray marks
+    private static final class FixedBackend implements RecognizerBackend {
+        private final String text;
+
+        FixedBackend(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String getName() {
+            return "fixed";
+        }
+
+        @Override
+        public Recognition recognize(InkImage ink) {
+            return new Recognition(text, 1f);
+        }
+    }
+}
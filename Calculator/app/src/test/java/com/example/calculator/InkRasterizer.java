@@ -0,0 +1,76 @@
+package com.example.calculator;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Software stand-in for DrawingView's ALPHA_8 ink canvas: strokes are drawn as
+ * round-capped capsules per segment, so cost grows with the number of segments the
+ * way path rendering does.
+ */
+final class InkRasterizer {
+    final int width;
+    final int height;
+    final byte[] plane;
+
+    InkRasterizer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.plane = new byte[width * height];
+    }
+
+    void clear() {
+        Arrays.fill(plane, (byte) 0);
+    }
+
+    void drawStrokes(List<float[]> strokes, float strokeWidth) {
+        for (float[] stroke : strokes) {
+            drawStroke(stroke, strokeWidth);
+        }
+    }
+
+    void drawStroke(float[] stroke, float strokeWidth) {
+        float radius = strokeWidth / 2;
+        if (stroke.length == 2) {
+            drawSegment(stroke[0], stroke[1], stroke[0], stroke[1], radius);
+        }
+        for (int i = 2; i < stroke.length; i += 2) {
+            drawSegment(stroke[i - 2], stroke[i - 1], stroke[i], stroke[i + 1], radius);
+        }
+    }
+
+    int inkPixels() {
+        int count = 0;
+        for (byte b : plane) {
+            if (b != 0) count++;
+        }
+        return count;
+    }
+
+    private void drawSegment(float x0, float y0, float x1, float y1, float radius) {
+        int minX = Math.max(0, (int) Math.floor(Math.min(x0, x1) - radius));
+        int maxX = Math.min(width - 1, (int) Math.ceil(Math.max(x0, x1) + radius));
+        int minY = Math.max(0, (int) Math.floor(Math.min(y0, y1) - radius));
+        int maxY = Math.min(height - 1, (int) Math.ceil(Math.max(y0, y1) + radius));
+
+        float dx = x1 - x0;
+        float dy = y1 - y0;
+        float lengthSquared = dx * dx + dy * dy;
+        float radiusSquared = radius * radius;
+
+        for (int y = minY; y <= maxY; y++) {
+            int row = y * width;
+            for (int x = minX; x <= maxX; x++) {
+                float px = x + 0.5f - x0;
+                float py = y + 0.5f - y0;
+                float t = lengthSquared == 0 ? 0 : (px * dx + py * dy) / lengthSquared;
+                t = Math.max(0, Math.min(1, t));
+                float ex = px - t * dx;
+                float ey = py - t * dy;
+                if (ex * ex + ey * ey <= radiusSquared) {
+                    plane[row + x] = (byte) 255;
+                }
+            }
+        }
+    }
+}
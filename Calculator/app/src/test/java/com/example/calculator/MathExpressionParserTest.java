@@ -0,0 +1,134 @@
+package com.example.calculator;
+
+import com.example.calculator.EvaluationResult.ErrorCode;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MathExpressionParserTest {
+    private final MathExpressionParser parser = new MathExpressionParser();
+
+    @Test
+    public void trailingOperator_isMissingOperandAtEnd() {
+        assertFailure("5+", ErrorCode.MISSING_OPERAND, 2);
+    }
+
+    @Test
+    public void unclosedParenthesis_isUnbalancedAtEnd() {
+        assertFailure("(3*", ErrorCode.UNBALANCED_PARENTHESES, 3);
+    }
+
+    @Test
+    public void strayClosingParenthesis_isUnbalancedAtIt() {
+        assertFailure("1+2)", ErrorCode.UNBALANCED_PARENTHESES, 3);
+    }
+
+    @Test
+    public void implicitMultiplication_isMissingOperator() {
+        assertFailure("2(3)", ErrorCode.MISSING_OPERATOR, 1);
+    }
+
+    @Test
+    public void divisionByZero_isReportedAfterDivisor() {
+        assertFailure("1/0", ErrorCode.DIVISION_BY_ZERO, 3);
+    }
+
+    @Test
+    public void secondDecimalPoint_isInvalidNumberAtItsStart() {
+        assertFailure("1.2.3", ErrorCode.INVALID_NUMBER, 0);
+    }
+
+    @Test
+    public void emptyParentheses_isMissingOperand() {
+        assertFailure("()", ErrorCode.MISSING_OPERAND, 1);
+    }
+
+    @Test
+    public void emptyAndInvalidInput() {
+        assertFailure("", ErrorCode.EMPTY, 0);
+        assertFailure("  ", ErrorCode.EMPTY, 0);
+        assertFailure(null, ErrorCode.EMPTY, 0);
+        assertFailure("1$2", ErrorCode.INVALID_CHARACTER, 1);
+    }
+
+    @Test
+    public void evaluateExpression_throwsOnInvalidInput() {
+        for (String expression : new String[] {"5+", "(3*", "2(3)", "1/0", "1.2.3", "()", ""}) {
+            try {
+                parser.evaluateExpression(expression);
+                fail("Expected IllegalArgumentException for " + expression);
+            } catch (IllegalArgumentException expected) {
+                // Still the contract for existing callers
+            }
+        }
+    }
+
+    @Test
+    public void unaryMinus_bindsLooserThanPower() {
+        assertValue("-2^2", -4);
+        assertValue("-(2)^2", -4);
+        assertValue("(-2)^2", 4);
+        assertValue("3*-2", -6);
+        assertValue("5--3", 8);
+    }
+
+    @Test
+    public void power_isRightAssociative() {
+        assertValue("2^3^2", 512);
+        assertValue("(2^3)^2", 64);
+    }
+
+    @Test
+    public void negativeExponent_bindsBeforeMultiplication() {
+        assertValue("2^-3*4", 0.5);
+        assertValue("2^-(1+1)", 0.25);
+    }
+
+    @Test
+    public void functionsAndConstants() {
+        assertValue("sqrt(16)+abs(-3)", 7);
+        assertValue("ln(e)", 1);
+        assertValue("log(1000)", 3);
+        assertValue("exp(0)", 1);
+        assertValue("cos(pi)", -1);
+        assertValue("sin(0)*tan(0)", 0);
+        assertValue("2*pi", 2 * Math.PI);
+        assertValue("3x4", 12);
+        assertValue("10÷4", 2.5);
+    }
+
+    @Test
+    public void unknownName_isUnknownIdentifierAtItsStart() {
+        assertFailure("foo+1", ErrorCode.UNKNOWN_IDENTIFIER, 0);
+        assertFailure("2+sqr(4)", ErrorCode.UNKNOWN_IDENTIFIER, 2);
+    }
+
+    @Test
+    public void undefinedResult_isDomainError() {
+        assertFailure("sqrt(-1)", ErrorCode.DOMAIN_ERROR, 7);
+        assertFailure("ln(0)", ErrorCode.DOMAIN_ERROR, 4);
+        assertFailure("(-8)^(1/3)", ErrorCode.DOMAIN_ERROR, 10);
+    }
+
+    @Test
+    public void overflow_isDomainErrorForFunctionsAndOperators() {
+        assertFailure("exp(1000)", ErrorCode.DOMAIN_ERROR, 8);
+        assertFailure("10^400", ErrorCode.DOMAIN_ERROR, 6);
+        assertFailure("1+10^400-1", ErrorCode.DOMAIN_ERROR, 8);
+        assertFailure("0^-1", ErrorCode.DOMAIN_ERROR, 4);
+    }
+
+    private void assertValue(String expression, double expected) {
+        EvaluationResult result = parser.tryEvaluate(expression);
+        assertTrue(expression + ": " + result.getError(), result.isSuccess());
+        assertEquals(expression, expected, result.getValue(), 1e-12);
+    }
+
+    private void assertFailure(String expression, ErrorCode error, int position) {
+        EvaluationResult result = parser.tryEvaluate(expression);
+        assertFalse(expression, result.isSuccess());
+        assertEquals(expression, error, result.getError());
+        assertEquals(expression, position, result.getPosition());
+        assertTrue(expression, Double.isNaN(result.getValue()));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.calculator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MathTextCleanerTest {
+
+    @Test
+    public void finalClean_keepsWhatTheParserAccepts() {
+        assertEquals("2^3", MathTextCleaner.finalClean("2^3"));
+        assertEquals("3*-2", MathTextCleaner.finalClean("3*-2"));
+        assertEquals("5--3", MathTextCleaner.finalClean("5--3"));
+        assertEquals("sqrt(16)+2*pi", MathTextCleaner.finalClean("sqrt(16) + 2*pi"));
+        assertEquals("3*4", MathTextCleaner.finalClean("3x4"));
+        assertEquals("10/4", MathTextCleaner.finalClean("10÷4"));
+    }
+
+    @Test
+    public void finalClean_dropsNoise() {
+        assertEquals("12+3", MathTextCleaner.finalClean("12 + 3 ="));
+        assertEquals("7*8", MathTextCleaner.finalClean("7**8#"));
+        assertEquals("4+1", MathTextCleaner.finalClean("4+qw1"));
+    }
+
+    @Test
+    public void cleanRecognizedText_keepsSignAfterOperator() {
+        assertEquals("3*-2", MathTextCleaner.cleanRecognizedText("3*-2"));
+        assertEquals("2^-3", MathTextCleaner.cleanRecognizedText("2^-3"));
+        assertEquals("5-3", MathTextCleaner.cleanRecognizedText("5-+3"));
+        assertEquals("7*8", MathTextCleaner.cleanRecognizedText("7*/8"));
+    }
+
+    @Test
+    public void cleanRecognizedText_keepsRegistryNames() {
+        assertEquals("sqrt(16)", MathTextCleaner.cleanRecognizedText("sqrt(16)"));
+        assertEquals("sin(0)", MathTextCleaner.cleanRecognizedText("sin(0)"));
+        assertEquals("2*pi", MathTextCleaner.cleanRecognizedText("2*pi"));
+        assertEquals("ln(e)+abs(-2)", MathTextCleaner.cleanRecognizedText("ln(e) + abs(-2)"));
+        // Letters around a name are still read as digits
+        assertEquals("10+log(100)", MathTextCleaner.cleanRecognizedText("lO+log(lOO)"));
+    }
+
+    @Test
+    public void finalClean_neverJoinsDigits() {
+        assertEquals("3*sqrt(4)", MathTextCleaner.finalClean("3xsqrt(4)"));
+        assertEquals("12w3", MathTextCleaner.finalClean("12w3"));
+        assertEquals("12+3", MathTextCleaner.finalClean("12w+3"));
+    }
+
+    @Test
+    public void namedExpressions_solveAfterCleaning() {
+        MathExpressionParser parser = new MathExpressionParser();
+        assertEquals(4, parser.evaluateExpression(clean("sqrt(16)")), 0);
+        assertEquals(0, parser.evaluateExpression(clean("sin(0)")), 0);
+        assertEquals(2 * Math.PI, parser.evaluateExpression(clean("2*pi")), 1e-12);
+        assertEquals(6, parser.evaluateExpression(clean("3xsqrt(4)")), 0);
+        assertEquals(EvaluationResult.ErrorCode.UNKNOWN_IDENTIFIER, parser.tryEvaluate(clean("12w3")).getError());
+    }
+
+    @Test
+    public void isMathExpression_acceptsRegistryGrammar() {
+        assertTrue(MathTextCleaner.isMathExpression("2^3"));
+        assertTrue(MathTextCleaner.isMathExpression("3*-2"));
+        assertTrue(MathTextCleaner.isMathExpression("sqrt(16)+pi"));
+        assertFalse(MathTextCleaner.isMathExpression("foo+1"));
+        assertFalse(MathTextCleaner.isMathExpression("(1+2"));
+        assertFalse(MathTextCleaner.isMathExpression(""));
+    }
+
+    @Test
+    public void drawnPower_solvesToSameValueAsWorksheet() {
+        MathExpressionParser parser = new MathExpressionParser();
+        String expression = MathTextCleaner.finalClean(MathTextCleaner.cleanRecognizedText("2^3"));
+        assertEquals(8, parser.evaluateExpression(expression), 0);
+    }
+
+    private static String clean(String text) {
+        return MathTextCleaner.finalClean(MathTextCleaner.cleanRecognizedText(text));
+    }
+}
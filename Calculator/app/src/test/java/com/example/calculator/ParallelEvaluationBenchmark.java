@@ -0,0 +1,76 @@
+package com.example.calculator;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Speed-up of ParallelExpressionEvaluator over the sequential parser on a 300k-term sum and
+ * a 300k-factor product, for 1, 2, 4, 8 and all available fork-join threads. Each parallel
+ * value must match the sequential one bit for bit before it is timed.
+ */
+public class ParallelEvaluationBenchmark {
+    private static final int TERMS = 300_000;
+    private static final int ROUNDS = 5;
+
+    private final MathExpressionParser parser = new MathExpressionParser();
+
+    @Test
+    public void longSumAndProduct_scalingWithThreads() {
+        Random random = new Random(5);
+        StringBuilder sum = new StringBuilder();
+        for (int i = 0; i < TERMS; i++) {
+            if (i > 0) {
+                sum.append(random.nextBoolean() ? '+' : '-');
+            }
+            sum.append(random.nextInt(1000)).append('.').append(random.nextInt(100));
+            if (i % 3 == 0) {
+                sum.append('*').append(random.nextInt(9) + 1);
+            }
+        }
+        // A single huge term, split at * and / instead
+        StringBuilder product = new StringBuilder("1");
+        for (int i = 0; i < TERMS; i++) {
+            product.append(i % 2 == 0 ? '*' : '/').append(String.format(Locale.US, "1.%04d", random.nextInt(10000)));
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("available processors: " + cores);
+        for (String expression : new String[] {sum.toString(), product.toString()}) {
+            EvaluationResult expected = parser.tryEvaluate(expression);
+            assertTrue(expected.isSuccess());
+
+            long sequential = time(() -> parser.tryEvaluate(expression));
+            System.out.printf("%d chars: sequential %.1f ms%n", expression.length(), sequential / 1e6);
+            for (int threads : new int[] {1, 2, 4, 8, cores}) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    ParallelExpressionEvaluator parallel = new ParallelExpressionEvaluator(parser, pool,
+                            ParallelExpressionEvaluator.DEFAULT_SEQUENTIAL_THRESHOLD);
+                    assertEquals(Double.doubleToRawLongBits(expected.getValue()),
+                            Double.doubleToRawLongBits(parallel.tryEvaluate(expression).getValue()));
+                    long nanos = time(() -> parallel.tryEvaluate(expression));
+                    System.out.printf("  %2d threads: %.1f ms (%.2fx)%n", threads, nanos / 1e6,
+                            (double) sequential / nanos);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+    }
+
+    private long time(Runnable evaluation) {
+        evaluation.run(); // Warm-up
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            evaluation.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
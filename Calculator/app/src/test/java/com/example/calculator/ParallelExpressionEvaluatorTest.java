@@ -0,0 +1,133 @@
+package com.example.calculator;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that ParallelExpressionEvaluator gives bit-identical values and identical
+ * errors to MathExpressionParser. Scaling is measured in ParallelEvaluationBenchmark.
+ */
+public class ParallelExpressionEvaluatorTest {
+    private static final int RANDOM_EXPRESSIONS = 300;
+    // Tiny threshold so the differential tests split deeply, including nested operands
+    private static final int SMALL_THRESHOLD = 32;
+
+    private final MathExpressionParser parser = new MathExpressionParser();
+
+    @Test
+    public void randomExpressions_identicalToSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ParallelExpressionEvaluator parallel = new ParallelExpressionEvaluator(parser, pool, SMALL_THRESHOLD);
+        Random random = new Random(11);
+        try {
+            for (int i = 0; i < RANDOM_EXPRESSIONS; i++) {
+                String expression = randomExpression(random, 40 + random.nextInt(400), 3);
+                assertSameResult(parallel, expression);
+                assertSameResult(parallel, corrupt(expression, random));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void edgeCases_identicalToSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ParallelExpressionEvaluator parallel = new ParallelExpressionEvaluator(parser, pool, 4);
+        String[] expressions = {
+                "1-2-3-4-5-6-7-8-9-10", "1000/10/5/2/2/0.5", "2^3^2+1-2^2^3", "-2^2-3*-4+-5",
+                "(1+2+3+4+5+6+7+8)", "((1-2)-(3-4))*-(5-6)", "sqrt(16)+sin(0)*cos(0)-ln(e)",
+                "1+2*3/0+4", "1+2+3+", "1+2)+(3", "(1+2+3+4", "1+2+3$4", "1+foo+3", "1+2(3)+4",
+                "1e308*10+-1e308*10-1", "1+sqrt(-1)+2", "1.2.3+4+5+6", "1+sin+2+3+4",
+                "12x3+4x5-6X7", "pi*2-e/3+10÷4", "5-+-+5-+-+5", "1+2*+3*4-5",
+                "((((1+1)+1)+1)+1)+1", "1+(1+(1+(1+(1+1))))", "((((((1+2+3+4+5))))))",
+                "((((1+1)+1)+1)+)*2", "((((1+1)+1)/0)+1)+1"};
+        try {
+            for (String expression : expressions) {
+                assertSameResult(parallel, expression);
+            }
+            // Deep nesting is evaluated without recursing once per level
+            for (int levels : new int[] {3_000, 300_000}) {
+                assertSameResult(parallel, leftNested(levels));
+            }
+            assertSameResult(parallel, rightNested(3_000));
+            assertSameResult(parallel, "(".repeat(3_000) + leftNested(1_000) + ")".repeat(3_000));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void assertSameResult(ParallelExpressionEvaluator parallel, String expression) {
+        EvaluationResult expected = parser.tryEvaluate(expression);
+        EvaluationResult actual = parallel.tryEvaluate(expression);
+        assertEquals(expression, expected.getError(), actual.getError());
+        assertEquals(expression, expected.getPosition(), actual.getPosition());
+        assertEquals(expression, Double.doubleToRawLongBits(expected.getValue()),
+                Double.doubleToRawLongBits(actual.getValue()));
+    }
+
+    private String randomExpression(Random random, int operands, int depth) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < operands; i++) {
+            if (i > 0) {
+                out.append("+-*/^".charAt(Math.min(4, random.nextInt(9) / 2)));
+            }
+            int kind = random.nextInt(12);
+            if (kind == 0) {
+                out.append('-');
+            }
+            if (kind == 1 && depth > 0) {
+                out.append('(').append(randomExpression(random, 2 + random.nextInt(30), depth - 1)).append(')');
+            } else if (kind == 2 && depth > 0) {
+                out.append(random.nextBoolean() ? "sqrt(" : "sin(")
+                        .append(randomExpression(random, 1 + random.nextInt(5), depth - 1)).append(')');
+            } else if (kind == 3) {
+                out.append(random.nextBoolean() ? "pi" : "e");
+            } else {
+                out.append(random.nextInt(100));
+                if (random.nextBoolean()) {
+                    out.append('.').append(random.nextInt(100));
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    // ((((1+1)+1)+1)...+1) with the given number of parentheses
+    private String leftNested(int levels) {
+        StringBuilder out = new StringBuilder(levels * 4 + 1);
+        out.append("(".repeat(levels)).append('1');
+        for (int i = 0; i < levels; i++) {
+            out.append("+1)");
+        }
+        return out.toString();
+    }
+
+    // 1+(1+(1+...(1+1)...))
+    private String rightNested(int levels) {
+        return "1+(".repeat(levels) + "1" + ")".repeat(levels);
+    }
+
+    // Injects one typical mistake at a random place, or none
+    private String corrupt(String expression, Random random) {
+        int at = random.nextInt(expression.length());
+        switch (random.nextInt(6)) {
+            case 0:
+                return expression.substring(0, at) + "$" + expression.substring(at);
+            case 1:
+                return expression.substring(0, at) + "/0" + expression.substring(at);
+            case 2:
+                return expression.substring(0, at) + expression.substring(at + 1);
+            case 3:
+                return expression.substring(0, at) + "foo" + expression.substring(at);
+            case 4:
+                return expression + "+";
+            default:
+                return expression;
+        }
+    }
+}
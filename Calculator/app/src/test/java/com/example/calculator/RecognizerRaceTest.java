@@ -0,0 +1,269 @@
+package com.example.calculator;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RecognizerRaceTest {
+    private static final InkImage INK = new InkImage(new byte[4], 2, 2, 2);
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private OCRHelper ocrHelper;
+
+    @After
+    public void tearDown() {
+        if (ocrHelper != null) {
+            ocrHelper.close();
+        }
+    }
+
+    @Test
+    public void firstConfidentAnswer_wins() throws Exception {
+        StubBackend fast = StubBackend.answering("fast", "12", 0.9f, 0);
+        StubBackend slow = StubBackend.answering("slow", "99", 0.95f, 5_000);
+        race(fast, slow);
+
+        ResultListener listener = run();
+        assertEquals("12", listener.text);
+        assertEquals(1, ocrHelper.getBackendStats().get(0).getWins());
+        assertEquals(0, ocrHelper.getBackendStats().get(1).getWins());
+    }
+
+    @Test
+    public void slowerBackends_areCancelled() throws Exception {
+        // Long enough for the slow backend to be running when it is cancelled
+        StubBackend fast = StubBackend.answering("fast", "12", 0.9f, 50);
+        StubBackend slow = StubBackend.answering("slow", "99", 0.95f, 5_000);
+        race(fast, slow);
+
+        run();
+        assertTrue("Slow backend was not interrupted", slow.interrupted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        BackendStats stats = ocrHelper.getBackendStats().get(1);
+        assertEquals(1, stats.getCancelled());
+        assertEquals(0, stats.getAnswers());
+    }
+
+    @Test
+    public void noConfidentAnswer_fallsBackToMostConfident() throws Exception {
+        race(StubBackend.answering("low", "12", 0.3f, 0),
+                StubBackend.answering("higher", "34", 0.5f, 20),
+                StubBackend.answering("empty", " ", 0.99f, 0));
+
+        ResultListener listener = run();
+        assertEquals("34", listener.text);
+        // The fallback answer counts as a win too
+        assertEquals(0, ocrHelper.getBackendStats().get(0).getWins());
+        assertEquals(1, ocrHelper.getBackendStats().get(1).getWins());
+        assertEquals(0, ocrHelper.getBackendStats().get(2).getWins());
+    }
+
+    @Test
+    public void failingBackend_isCountedAndIgnored() throws Exception {
+        race(StubBackend.failing("broken"), StubBackend.answering("working", "56", 0.4f, 20));
+
+        ResultListener listener = run();
+        assertEquals("56", listener.text);
+        assertEquals(1, ocrHelper.getBackendStats().get(0).getFailures());
+        assertEquals(0, ocrHelper.getBackendStats().get(0).getWins());
+    }
+
+    @Test
+    public void allBackendsFailing_reportsError() throws Exception {
+        race(StubBackend.failing("broken"), StubBackend.answering("blank", "", 1f, 0));
+
+        ResultListener listener = run();
+        assertNull(listener.text);
+        assertNotNull(listener.error);
+    }
+
+    @Test
+    public void stuckBackend_timesOutWithBestAnswer() throws Exception {
+        StubBackend stuck = StubBackend.ignoringInterrupts("stuck", 1_500);
+        race(StubBackend.answering("unsure", "78", 0.2f, 0), stuck);
+        ocrHelper.setRaceTimeoutMillis(100);
+
+        long start = System.nanoTime();
+        ResultListener listener = run();
+        assertEquals("78", listener.text);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1_000));
+        assertEquals(1, ocrHelper.getBackendStats().get(0).getWins());
+        assertEquals(1, ocrHelper.getBackendStats().get(1).getCancelled());
+    }
+
+    @Test
+    public void stuckBackend_timesOutWithErrorWhenNothingAnswered() throws Exception {
+        race(StubBackend.ignoringInterrupts("stuck", 1_500));
+        ocrHelper.setRaceTimeoutMillis(100);
+
+        ResultListener listener = run();
+        assertNull(listener.text);
+        assertEquals("Recognition timed out", listener.error);
+    }
+
+    @Test
+    public void stats_countEveryRace() throws Exception {
+        // The broken backend fails well before the confident one answers
+        race(StubBackend.answering("confident", "1", 0.9f, 30), StubBackend.failing("broken"));
+
+        int races = 5;
+        for (int i = 0; i < races; i++) {
+            run();
+        }
+        BackendStats winner = ocrHelper.getBackendStats().get(0);
+        BackendStats loser = ocrHelper.getBackendStats().get(1);
+        assertEquals(races, winner.getRaces());
+        assertEquals(races, winner.getWins());
+        assertEquals(races, winner.getAnswers());
+        assertEquals(1.0, winner.getWinRate(), 0);
+        assertTrue(winner.getMaxLatencyMillis() >= winner.getMeanLatencyMillis());
+        assertEquals(races, loser.getRaces());
+        assertEquals(0, loser.getWins());
+        assertEquals(0, loser.getAnswers());
+        assertEquals(races, loser.getFailures());
+        assertEquals(0, loser.getCancelled());
+    }
+
+    @Test
+    public void winnerTrackedAfterDeciding_isNotCancelled() {
+        BackendStats stats = new BackendStats("fast");
+        ResultListener listener = new ResultListener();
+        RecognizerRace race = new RecognizerRace(Collections.singletonList(StubBackend.failing("fast")),
+                Collections.singletonList(stats), 0.7f, listener);
+        // The winner answers from inside its task, before submit has returned its future
+        FutureTask<Void> task = new FutureTask<>(() -> null);
+        race.finish(0, new Recognition("12", 0.9f));
+        race.track(0, task);
+
+        assertFalse(task.isCancelled());
+        assertEquals(0, stats.getCancelled());
+        assertEquals(1, stats.getWins());
+        assertEquals("12", listener.text);
+    }
+
+    @Test
+    public void abortedRace_reportsErrorAndCancelsContenders() {
+        List<BackendStats> stats = Arrays.asList(new BackendStats("first"), new BackendStats("second"));
+        ResultListener listener = new ResultListener();
+        RecognizerRace race = new RecognizerRace(
+                Arrays.asList(StubBackend.failing("first"), StubBackend.failing("second")), stats, 0.7f, listener);
+        FutureTask<Void> first = new FutureTask<>(() -> null);
+        race.track(0, first);
+        race.abort("OCR closed");
+
+        assertEquals("OCR closed", listener.error);
+        assertTrue(first.isCancelled());
+        assertEquals(1, stats.get(0).getCancelled());
+        // Nothing is delivered twice once the race is over
+        race.finish(0, new Recognition("12", 0.9f));
+        assertNull(listener.text);
+    }
+
+    @Test
+    public void closedHelper_reportsError() throws Exception {
+        race(StubBackend.answering("fast", "12", 0.9f, 0));
+        ocrHelper.close();
+
+        ResultListener listener = run();
+        assertNull(listener.text);
+        assertEquals("OCR closed", listener.error);
+    }
+
+    private void race(RecognizerBackend first, RecognizerBackend... others) {
+        ocrHelper = new OCRHelper(first);
+        for (RecognizerBackend backend : others) {
+            ocrHelper.addBackend(backend);
+        }
+    }
+
+    private ResultListener run() throws InterruptedException {
+        ResultListener listener = new ResultListener();
+        ocrHelper.raceTextFromInk(INK, listener);
+        assertTrue("Race was never decided", listener.done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        return listener;
+    }
+
+    private static final class ResultListener implements OCRHelper.OCRListener {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile String text;
+        volatile String error;
+
+        @Override
+        public void onOCRSuccess(String recognizedText) {
+            text = recognizedText;
+            done.countDown();
+        }
+
+        @Override
+        public void onOCRError(String message) {
+            error = message;
+            done.countDown();
+        }
+    }
+
+    private static final class StubBackend implements RecognizerBackend {
+        private final String name;
+        private final Recognition answer;
+        private final long delayMillis;
+        private final boolean ignoresInterrupts;
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        private StubBackend(String name, Recognition answer, long delayMillis, boolean ignoresInterrupts) {
+            this.name = name;
+            this.answer = answer;
+            this.delayMillis = delayMillis;
+            this.ignoresInterrupts = ignoresInterrupts;
+        }
+
+        static StubBackend answering(String name, String text, float confidence, long delayMillis) {
+            return new StubBackend(name, new Recognition(text, confidence), delayMillis, false);
+        }
+
+        // Throws instead of answering
+        static StubBackend failing(String name) {
+            return new StubBackend(name, null, 0, false);
+        }
+
+        // Busy for delayMillis whatever happens, then has nothing to say
+        static StubBackend ignoringInterrupts(String name, long delayMillis) {
+            return new StubBackend(name, new Recognition("", 0), delayMillis, true);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Recognition recognize(InkImage ink) throws Exception {
+            if (ignoresInterrupts) {
+                long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+                for (long left = delayMillis; left > 0; left = TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime())) {
+                    try {
+                        Thread.sleep(left);
+                    } catch (InterruptedException ignored) {
+                        // Like a native call that cannot be cancelled
+                    }
+                }
+            } else if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+            }
+            if (answer == null) {
+                throw new IllegalStateException(name + " failed");
+            }
+            return answer;
+        }
+    }
+}
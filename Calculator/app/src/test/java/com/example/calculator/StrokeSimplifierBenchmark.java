@@ -0,0 +1,72 @@
+package com.example.calculator;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.example.calculator.HandwritingFixture.*;
+
+/**
+ * Per worksheet: how many touch points StrokeSimplifier removes, what simplifying costs
+ * and how much rasterization time it saves (best of ROUNDS after a warm-up), and the
+ * share of ink pixels that changed.
+ */
+public class StrokeSimplifierBenchmark {
+    private static final int ROUNDS = 20;
+
+    @Test
+    public void typicalEquations_pointsRemovedAndLatencySaved() {
+        StrokeSimplifier simplifier = new StrokeSimplifier();
+        InkRasterizer raw = new InkRasterizer(CANVAS_WIDTH, CANVAS_HEIGHT);
+        InkRasterizer simplified = new InkRasterizer(CANVAS_WIDTH, CANVAS_HEIGHT);
+
+        int totalRaw = 0;
+        int totalSimplified = 0;
+        for (int w = 0; w < WORKSHEETS.length; w++) {
+            List<float[]> strokes = write(WORKSHEETS[w], w);
+            List<float[]> processed = processAll(simplifier, strokes);
+
+            // Warm up, then best of ROUNDS
+            long simplifyNanos = Long.MAX_VALUE;
+            long rawRasterNanos = Long.MAX_VALUE;
+            long simplifiedRasterNanos = Long.MAX_VALUE;
+            for (int round = 0; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                processed = processAll(simplifier, strokes);
+                long simplifyTime = System.nanoTime() - start;
+
+                raw.clear();
+                start = System.nanoTime();
+                raw.drawStrokes(strokes, STROKE_WIDTH);
+                long rawTime = System.nanoTime() - start;
+
+                simplified.clear();
+                start = System.nanoTime();
+                simplified.drawStrokes(processed, STROKE_WIDTH);
+                long simplifiedTime = System.nanoTime() - start;
+
+                if (round > 0) {
+                    simplifyNanos = Math.min(simplifyNanos, simplifyTime);
+                    rawRasterNanos = Math.min(rawRasterNanos, rawTime);
+                    simplifiedRasterNanos = Math.min(simplifiedRasterNanos, simplifiedTime);
+                }
+            }
+
+            int rawPoints = SyntheticStrokes.pointCount(strokes);
+            int simplifiedPoints = SyntheticStrokes.pointCount(processed);
+            totalRaw += rawPoints;
+            totalSimplified += simplifiedPoints;
+
+            System.out.printf("%-24s points %5d -> %4d (%.0f%% removed), simplify %.3f ms, "
+                            + "raster %.3f ms -> %.3f ms (saved %.3f ms), ink diff %.2f%%%n",
+                    WORKSHEETS[w].replace('\n', ' '), rawPoints, simplifiedPoints,
+                    100.0 * (rawPoints - simplifiedPoints) / rawPoints,
+                    simplifyNanos / 1e6, rawRasterNanos / 1e6, simplifiedRasterNanos / 1e6,
+                    (rawRasterNanos - simplifiedRasterNanos - simplifyNanos) / 1e6,
+                    100.0 * inkDifference(raw, simplified) / raw.inkPixels());
+        }
+
+        System.out.printf("total points %d -> %d (%.0f%% removed)%n", totalRaw, totalSimplified,
+                100.0 * (totalRaw - totalSimplified) / totalRaw);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.calculator;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.example.calculator.HandwritingFixture.*;
+import static org.junit.Assert.*;
+
+/**
+ * StrokeSimplifier on single strokes and on the HandwritingFixture worksheets, which must
+ * keep their ink with half the points.
+ */
+public class StrokeSimplifierTest {
+    @Test
+    public void simplify_keepsEndpointsAndShape() {
+        float[] line = {0, 0, 1, 0.2f, 2, -0.1f, 3, 0.1f, 10, 0};
+        float[] simplified = StrokeSimplifier.simplify(line, 0.5f);
+        assertArrayEquals(new float[] {0, 0, 10, 0}, simplified, 0f);
+
+        float[] corner = {0, 0, 5, 0, 10, 0, 10, 5, 10, 10};
+        assertArrayEquals(new float[] {0, 0, 10, 0, 10, 10}, StrokeSimplifier.simplify(corner, 0.5f), 0f);
+    }
+
+    @Test
+    public void resample_spacesPointsEvenly() {
+        float[] stroke = {0, 0, 1, 0, 10, 0};
+        float[] resampled = StrokeSimplifier.resample(stroke, 3, 2.5f);
+        assertEquals(10, resampled.length); // 4 segments of 2.5
+        for (int i = 0; i < resampled.length / 2; i++) {
+            assertEquals(i * 2.5f, resampled[i * 2], 1e-4f);
+        }
+
+        float[] tap = {3, 4};
+        assertArrayEquals(tap, StrokeSimplifier.resample(tap, 1, 2.5f), 0f);
+    }
+
+    @Test
+    public void typicalEquations_halfThePointsSameInk() {
+        StrokeSimplifier simplifier = new StrokeSimplifier();
+        InkRasterizer raw = new InkRasterizer(CANVAS_WIDTH, CANVAS_HEIGHT);
+        InkRasterizer simplified = new InkRasterizer(CANVAS_WIDTH, CANVAS_HEIGHT);
+
+        int totalRaw = 0;
+        int totalSimplified = 0;
+        for (int w = 0; w < WORKSHEETS.length; w++) {
+            List<float[]> strokes = write(WORKSHEETS[w], w);
+            List<float[]> processed = processAll(simplifier, strokes);
+            totalRaw += SyntheticStrokes.pointCount(strokes);
+            totalSimplified += SyntheticStrokes.pointCount(processed);
+
+            raw.clear();
+            raw.drawStrokes(strokes, STROKE_WIDTH);
+            simplified.clear();
+            simplified.drawStrokes(processed, STROKE_WIDTH);
+            // Simplified ink must stay visually the same for recognition
+            assertTrue(WORKSHEETS[w], inkDifference(raw, simplified) < raw.inkPixels() * 0.05);
+        }
+        assertTrue(totalSimplified < totalRaw / 2);
+    }
+}
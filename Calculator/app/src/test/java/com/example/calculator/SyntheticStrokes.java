@@ -0,0 +1,136 @@
+package com.example.calculator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Scripted handwriting for JVM tests: a small stroke font for digits and operators,
+ * sampled densely with jitter the way a touch screen reports a moving finger.
+ */
+final class SyntheticStrokes {
+    // Glyph box is GLYPH_WIDTH x 1 in units of the text size
+    static final float GLYPH_WIDTH = 0.6f;
+    static final float ADVANCE = 0.9f;
+
+    private static final Map<Character, List<float[]>> GLYPHS = new HashMap<>();
+
+    static {
+        glyph('0', arc(0.3f, 0.5f, 0.25f, 0.45f, 0, 360));
+        glyph('1', line(0.15f, 0.2f, 0.3f, 0f, 0.3f, 1f));
+        glyph('2', join(arc(0.3f, 0.28f, 0.23f, 0.23f, 180, 390), line(0.05f, 1f, 0.55f, 1f)));
+        glyph('3', join(arc(0.3f, 0.27f, 0.22f, 0.22f, 200, 450), arc(0.3f, 0.73f, 0.25f, 0.25f, 270, 520)));
+        glyph('4', line(0.42f, 1f, 0.42f, 0f, 0.03f, 0.68f, 0.57f, 0.68f));
+        glyph('5', join(line(0.52f, 0f, 0.1f, 0f, 0.07f, 0.45f), arc(0.3f, 0.68f, 0.25f, 0.3f, 240, 500)));
+        glyph('6', join(line(0.48f, 0.02f, 0.15f, 0.4f), arc(0.3f, 0.7f, 0.22f, 0.28f, 200, 560)));
+        glyph('7', line(0.05f, 0f, 0.55f, 0f, 0.2f, 1f));
+        glyph('8', arc(0.3f, 0.26f, 0.2f, 0.24f, 0, 360), arc(0.3f, 0.74f, 0.25f, 0.26f, 0, 360));
+        glyph('9', join(arc(0.3f, 0.3f, 0.22f, 0.28f, 0, 360), line(0.45f, 1f)));
+        glyph('+', line(0.3f, 0.25f, 0.3f, 0.75f), line(0.05f, 0.5f, 0.55f, 0.5f));
+        glyph('-', line(0.05f, 0.5f, 0.55f, 0.5f));
+        glyph('*', line(0.1f, 0.3f, 0.5f, 0.7f), line(0.5f, 0.3f, 0.1f, 0.7f));
+        glyph('/', line(0.5f, 0f, 0.1f, 1f));
+        glyph('(', arc(0.55f, 0.5f, 0.35f, 0.5f, 120, 240));
+        glyph(')', arc(0.05f, 0.5f, 0.35f, 0.5f, -60, 60));
+        glyph('.', line(0.27f, 0.93f, 0.33f, 0.97f));
+    }
+
+    private SyntheticStrokes() {
+    }
+
+    static boolean supports(char c) {
+        return GLYPHS.containsKey(c);
+    }
+
+    static List<float[]> glyphOutline(char c) {
+        return GLYPHS.get(c);
+    }
+
+    /**
+     * Raw touch strokes for {@code text} with its top-left corner at (x, y), one point
+     * roughly every {@code sampleSpacing} pixels plus up to {@code jitter} pixels of noise.
+     */
+    static List<float[]> write(String text, float x, float y, float size,
+                               float sampleSpacing, float jitter, long seed) {
+        Random random = new Random(seed);
+        List<float[]> strokes = new ArrayList<>();
+        for (int i = 0; i < text.length(); i++) {
+            List<float[]> glyph = GLYPHS.get(text.charAt(i));
+            if (glyph == null) {
+                throw new IllegalArgumentException("No glyph for " + text.charAt(i));
+            }
+            float left = x + i * ADVANCE * size;
+            for (float[] outline : glyph) {
+                strokes.add(sample(outline, left, y, size, sampleSpacing, jitter, random));
+            }
+        }
+        return strokes;
+    }
+
+    static int pointCount(List<float[]> strokes) {
+        int count = 0;
+        for (float[] stroke : strokes) {
+            count += stroke.length / 2;
+        }
+        return count;
+    }
+
+    private static float[] sample(float[] outline, float left, float top, float size,
+                                  float spacing, float jitter, Random random) {
+        List<Float> points = new ArrayList<>();
+        for (int i = 0; i + 3 < outline.length; i += 2) {
+            float x0 = left + outline[i] * size;
+            float y0 = top + outline[i + 1] * size;
+            float x1 = left + outline[i + 2] * size;
+            float y1 = top + outline[i + 3] * size;
+            float length = (float) Math.hypot(x1 - x0, y1 - y0);
+            int steps = Math.max(1, (int) (length / spacing));
+            for (int s = 0; s < steps; s++) {
+                float t = (float) s / steps;
+                points.add(x0 + t * (x1 - x0) + (random.nextFloat() * 2 - 1) * jitter);
+                points.add(y0 + t * (y1 - y0) + (random.nextFloat() * 2 - 1) * jitter);
+            }
+        }
+        points.add(left + outline[outline.length - 2] * size);
+        points.add(top + outline[outline.length - 1] * size);
+
+        float[] stroke = new float[points.size()];
+        for (int i = 0; i < stroke.length; i++) {
+            stroke[i] = points.get(i);
+        }
+        return stroke;
+    }
+
+    private static void glyph(char c, float[]... outlines) {
+        List<float[]> list = new ArrayList<>();
+        for (float[] outline : outlines) {
+            list.add(outline);
+        }
+        GLYPHS.put(c, list);
+    }
+
+    private static float[] line(float... points) {
+        return points;
+    }
+
+    private static float[] join(float[] a, float[] b) {
+        float[] out = new float[a.length + b.length];
+        System.arraycopy(a, 0, out, 0, a.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+
+    // Angles in degrees, y grows downwards so 270 is the top of the ellipse
+    private static float[] arc(float cx, float cy, float rx, float ry, float from, float to) {
+        int steps = Math.max(2, (int) (Math.abs(to - from) / 15));
+        float[] points = new float[(steps + 1) * 2];
+        for (int i = 0; i <= steps; i++) {
+            double angle = Math.toRadians(from + (to - from) * i / steps);
+            points[i * 2] = cx + rx * (float) Math.cos(angle);
+            points[i * 2 + 1] = cy + ry * (float) Math.sin(angle);
+        }
+        return points;
+    }
+}
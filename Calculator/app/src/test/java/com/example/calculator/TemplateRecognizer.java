@@ -0,0 +1,198 @@
+package com.example.calculator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic RecognizerBackend for JVM tests. Lines and glyphs are split on empty
+ * rows and columns, and each glyph is matched against the SyntheticStrokes font
+ * rasterized with InkRasterizer, so it reads back anything SyntheticStrokes writes.
+ * Confidence is that of the least certain glyph: how much closer its best template is
+ * than the runner-up.
+ */
+final class TemplateRecognizer implements RecognizerBackend {
+    private static final int GRID = 12;
+    private static final float TEMPLATE_SIZE = 110f;
+    // Shape features (aspect, height and position in the line) weigh against the grid distance
+    private static final float SHAPE_WEIGHT = 0.5f;
+
+    private final List<Template> templates = new ArrayList<>();
+
+    TemplateRecognizer(float strokeWidth) {
+        int margin = (int) Math.ceil(strokeWidth);
+        int size = (int) TEMPLATE_SIZE + 2 * margin;
+        InkRasterizer rasterizer = new InkRasterizer(size, size);
+        for (char c = 0; c < 128; c++) {
+            if (!SyntheticStrokes.supports(c)) {
+                continue;
+            }
+            rasterizer.clear();
+            for (float[] outline : SyntheticStrokes.glyphOutline(c)) {
+                float[] stroke = new float[outline.length];
+                for (int i = 0; i < outline.length; i++) {
+                    stroke[i] = margin + outline[i] * TEMPLATE_SIZE;
+                }
+                rasterizer.drawStroke(stroke, strokeWidth);
+            }
+            InkImage ink = new InkImage(rasterizer.plane, size, size, size);
+            // The line band of a full height glyph, stroke caps included
+            int bandTop = margin - Math.round(strokeWidth / 2);
+            int bandBottom = margin + (int) TEMPLATE_SIZE + Math.round(strokeWidth / 2);
+            Span glyph = bounds(columnProfile(ink, 0, size - 1), 0);
+            templates.add(new Template(c, features(ink, glyph, bandTop, bandBottom)));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "template";
+    }
+
+    @Override
+    public Recognition recognize(InkImage ink) {
+        StringBuilder text = new StringBuilder();
+        float confidence = 1;
+        for (Span line : spans(rowProfile(ink, 0, ink.getWidth() - 1))) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            for (Span glyph : spans(columnProfile(ink, line.start, line.end))) {
+                float[] features = features(ink, glyph, line.start, line.end + 1);
+                float best = Float.MAX_VALUE;
+                float runnerUp = Float.MAX_VALUE;
+                char symbol = '?';
+                for (Template template : templates) {
+                    float distance = distance(features, template.features);
+                    if (distance < best) {
+                        runnerUp = best;
+                        best = distance;
+                        symbol = template.symbol;
+                    } else if (distance < runnerUp) {
+                        runnerUp = distance;
+                    }
+                }
+                text.append(symbol);
+                confidence = Math.min(confidence, 1 - best / runnerUp);
+            }
+        }
+        return new Recognition(text.toString(), text.length() == 0 ? 0 : confidence);
+    }
+
+    private float distance(float[] a, float[] b) {
+        float distance = 0;
+        for (int i = 0; i < a.length; i++) {
+            float d = a[i] - b[i];
+            distance += i < GRID * GRID ? d * d / (GRID * GRID) : SHAPE_WEIGHT * d * d;
+        }
+        return distance;
+    }
+
+    // Ink coverage of the glyph box stretched to GRID x GRID, then aspect, height and center
+    private float[] features(InkImage ink, Span cols, int bandTop, int bandBottom) {
+        Span rows = bounds(rowProfile(ink, cols.start, cols.end, bandTop, bandBottom), bandTop);
+        int width = cols.end - cols.start + 1;
+        int height = rows.end - rows.start + 1;
+
+        float[] features = new float[GRID * GRID + 3];
+        int[] counts = new int[GRID * GRID];
+        for (int y = rows.start; y <= rows.end; y++) {
+            int cellY = (y - rows.start) * GRID / height;
+            for (int x = cols.start; x <= cols.end; x++) {
+                int cell = cellY * GRID + (x - cols.start) * GRID / width;
+                counts[cell]++;
+                if (ink.getCoverage(x, y) != 0) {
+                    features[cell]++;
+                }
+            }
+        }
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                features[i] /= counts[i];
+            }
+        }
+
+        float bandHeight = bandBottom - bandTop;
+        features[GRID * GRID] = (float) Math.log((float) width / height);
+        features[GRID * GRID + 1] = height / bandHeight;
+        features[GRID * GRID + 2] = ((rows.start + rows.end) / 2f - bandTop) / bandHeight;
+        return features;
+    }
+
+    private int[] rowProfile(InkImage ink, int fromX, int toX) {
+        return rowProfile(ink, fromX, toX, 0, ink.getHeight());
+    }
+
+    private int[] rowProfile(InkImage ink, int fromX, int toX, int fromY, int toY) {
+        int[] profile = new int[toY - fromY];
+        for (int y = fromY; y < toY; y++) {
+            for (int x = fromX; x <= toX; x++) {
+                if (ink.getCoverage(x, y) != 0) {
+                    profile[y - fromY]++;
+                }
+            }
+        }
+        return profile;
+    }
+
+    // Columns of the whole image, restricted to rows fromY..toY
+    private int[] columnProfile(InkImage ink, int fromY, int toY) {
+        int[] profile = new int[ink.getWidth()];
+        for (int y = fromY; y <= toY; y++) {
+            for (int x = 0; x < profile.length; x++) {
+                if (ink.getCoverage(x, y) != 0) {
+                    profile[x]++;
+                }
+            }
+        }
+        return profile;
+    }
+
+    // Runs of non-empty profile entries
+    private List<Span> spans(int[] profile) {
+        List<Span> spans = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= profile.length; i++) {
+            boolean inked = i < profile.length && profile[i] > 0;
+            if (inked && start < 0) {
+                start = i;
+            } else if (!inked && start >= 0) {
+                spans.add(new Span(start, i - 1));
+                start = -1;
+            }
+        }
+        return spans;
+    }
+
+    // First to last non-empty entry, shifted by offset
+    private Span bounds(int[] profile, int offset) {
+        int start = 0;
+        while (start < profile.length - 1 && profile[start] == 0) {
+            start++;
+        }
+        int end = profile.length - 1;
+        while (end > start && profile[end] == 0) {
+            end--;
+        }
+        return new Span(offset + start, offset + end);
+    }
+
+    private static final class Span {
+        final int start;
+        final int end;
+
+        Span(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static final class Template {
+        final char symbol;
+        final float[] features;
+
+        Template(char symbol, float[] features) {
+            this.symbol = symbol;
+            this.features = features;
+        }
+    }
+}